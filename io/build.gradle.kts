@@ -5,6 +5,7 @@
 plugins {
     id("buildlogic.java-conventions")
     alias(libs.plugins.freefair.lombok)
+    alias(libs.plugins.champeau.jmh)
 }
 
 dependencies {
@@ -13,7 +14,28 @@ dependencies {
     compileOnly(libs.org.jetbrains.annotations)
     compileOnly(libs.com.zaxxer.hikaricp)
     compileOnly(project(":alpslib-utils"))
+    testImplementation(libs.org.junit.jupiter.junit.jupiter.engine)
+    testImplementation(libs.io.papermc.paper.paper.api)
+    testImplementation(libs.org.jetbrains.annotations)
+    testImplementation(libs.com.zaxxer.hikaricp)
+    testImplementation(libs.com.h2database.h2)
+    jmh(libs.io.papermc.paper.paper.api)
+    jmh(libs.com.zaxxer.hikaricp)
+    jmh(libs.com.h2database.h2)
 }
 
 description = "AlpsLib-IO"
 version = "1.2.0"
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+// Run with: ./gradlew :alpslib-io:jmh
+// Benchmarks run against an embedded H2 database in MariaDB mode, see EmbeddedDatabase
+jmh {
+    includeTests = true
+    warmupIterations = 2
+    iterations = 5
+    fork = 1
+}
@@ -0,0 +1,113 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures the main {@link SqlHelper} paths against an {@link EmbeddedDatabase} at several pool sizes.
+ * Every path is run by 1, 4 and 16 threads through the nested subclasses, so contention on the pool
+ * shows up next to the single-threaded cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public abstract class SqlHelperBenchmark {
+    private static final int ROWS = 10000;
+    private static final int BATCH_SIZE = 100;
+    private static final String INSERT = "INSERT INTO " + EmbeddedDatabase.PLOTS + " (owner_uuid, status, score) VALUES (?, ?, ?)";
+
+    @Param({"2", "8", "32"})
+    public int poolSize;
+
+    private List<Integer> batch;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        EmbeddedDatabase.start(poolSize);
+        EmbeddedDatabase.seed(ROWS);
+        batch = IntStream.range(0, BATCH_SIZE).boxed().toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        EmbeddedDatabase.stop();
+    }
+
+    @TearDown(Level.Iteration)
+    public void trim() throws SQLException {
+        // Drop rows added by batchInsert, so every iteration reads the same amount of data
+        SqlHelper.runStatement("DELETE FROM " + EmbeddedDatabase.PLOTS + " WHERE id > ?", ps -> ps.setInt(1, ROWS));
+    }
+
+    @Benchmark
+    public String singleQuery() throws SQLException {
+        return SqlHelper.runQuery("SELECT owner_uuid FROM " + EmbeddedDatabase.PLOTS + " WHERE id = ?", ps -> {
+            ps.setInt(1, ThreadLocalRandom.current().nextInt(1, ROWS + 1));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Long> batchInsert() throws SQLException {
+        return SqlHelper.runBatchInsertQuery(INSERT, batch, (ps, i) -> {
+            ps.setString(1, UUID.randomUUID().toString());
+            ps.setString(2, "unclaimed");
+            ps.setInt(3, i);
+        }, BATCH_SIZE);
+    }
+
+    @Benchmark
+    public long streamingRead() throws SQLException {
+        try (Stream<Integer> scores = SqlHelper.stream("SELECT score FROM " + EmbeddedDatabase.PLOTS + " WHERE id <= ?",
+                ps -> ps.setInt(1, ROWS), rs -> rs.getInt(1))) {
+            return scores.mapToLong(Integer::longValue).sum();
+        }
+    }
+
+    @Benchmark
+    public int transaction() throws SQLException {
+        int id = ThreadLocalRandom.current().nextInt(1, ROWS + 1);
+        return SqlHelper.inTransaction(tx -> {
+            int score = tx.runQuery("SELECT score FROM " + EmbeddedDatabase.PLOTS + " WHERE id = ? FOR UPDATE", ps -> {
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+            tx.runStatement("UPDATE " + EmbeddedDatabase.PLOTS + " SET score = ? WHERE id = ?", ps -> {
+                ps.setInt(1, (score + 1) % 100);
+                ps.setInt(2, id);
+            });
+            return score;
+        });
+    }
+
+    @Threads(1)
+    public static class SingleThread extends SqlHelperBenchmark {}
+
+    @Threads(4)
+    public static class FourThreads extends SqlHelperBenchmark {}
+
+    @Threads(16)
+    public static class SixteenThreads extends SqlHelperBenchmark {}
+}
@@ -1,7 +1,11 @@
 package com.alpsbte.alpslib.io;
 
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemorySection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.yaml.snakeyaml.DumperOptions;
 
 import java.io.BufferedReader;
@@ -19,6 +23,8 @@ public class YamlFile extends YamlConfiguration {
     private final double version;
     private final File file;
     private final String fileName;
+    private volatile boolean dirty;
+    private volatile byte[] fingerprint;
 
     protected YamlFile(Path fileName, double version) {
         this.filePath = fileName;
@@ -27,6 +33,89 @@ public class YamlFile extends YamlConfiguration {
         this.fileName = file.getName();
     }
 
+    @Override
+    public void loadFromString(@NotNull String contents) throws InvalidConfigurationException {
+        super.loadFromString(contents);
+        dirty = false;
+    }
+
+    @Override
+    public void set(@NotNull String path, @Nullable Object value) {
+        super.set(path, value);
+        dirty = true;
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        ConfigurationSection section = TrackingSection.create(this, path);
+        return section != null ? section : super.createSection(path);
+    }
+
+    @Override
+    public void setComments(@NotNull String path, @Nullable List<String> comments) {
+        super.setComments(path, comments);
+        dirty = true;
+    }
+
+    @Override
+    public void setInlineComments(@NotNull String path, @Nullable List<String> comments) {
+        super.setInlineComments(path, comments);
+        dirty = true;
+    }
+
+    /**
+     * Whether the file was modified since it was last loaded or saved.
+     * Values and comments set through this file or any of its sections are tracked.
+     * @return true if the file has unsaved changes
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks the file as modified, e.g. after changing a list returned by {@link #getList(String)} in place,
+     * which cannot be tracked.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
+    /**
+     * Replaces all values, comments, the header and the footer with those of the given configuration.
+     * @param source configuration to copy
+     */
+    void replaceContents(@NotNull YamlConfiguration source) {
+        for (String key : getKeys(false)) super.set(key, null);
+        copy(source, this);
+        options().setHeader(source.options().getHeader());
+        options().setFooter(source.options().getFooter());
+        dirty = false;
+    }
+
+    private static void copy(@NotNull ConfigurationSection from, @NotNull ConfigurationSection to) {
+        for (String key : from.getKeys(false)) {
+            if (from.get(key) instanceof ConfigurationSection section) copy(section, to.createSection(key));
+            else to.set(key, from.get(key));
+            to.setComments(key, from.getComments(key));
+            to.setInlineComments(key, from.getInlineComments(key));
+        }
+    }
+
+    /**
+     * @return SHA-256 hash of the file content on disk as of the last load or save, or null if fingerprints are not tracked
+     */
+    byte @Nullable [] getFingerprint() {
+        return fingerprint;
+    }
+
+    void setFingerprint(byte @Nullable [] fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
     @Override
     public @NotNull String saveToString() {
         try {
@@ -77,4 +166,53 @@ public class YamlFile extends YamlConfiguration {
     public int getMaxConfigWidth() {
         return 250;
     }
+
+    /**
+     * Section marking its file as modified when a value or comment is set.
+     * Sections created below it are tracking sections as well.
+     */
+    private static class TrackingSection extends MemorySection {
+        private TrackingSection(@NotNull ConfigurationSection parent, @NotNull String path) {
+            super(parent, path);
+        }
+
+        /**
+         * Creates a tracking section for a direct child of the given section.
+         * @return the created section, or null if the path has several nodes and is resolved by the default implementation
+         */
+        private static @Nullable ConfigurationSection create(@NotNull ConfigurationSection parent, @NotNull String path) {
+            if (path.indexOf(parent.getRoot().options().pathSeparator()) >= 0) return null;
+            TrackingSection section = new TrackingSection(parent, path);
+            parent.set(path, section);
+            return section;
+        }
+
+        @Override
+        public void set(@NotNull String path, @Nullable Object value) {
+            super.set(path, value);
+            markRootDirty();
+        }
+
+        @Override
+        public @NotNull ConfigurationSection createSection(@NotNull String path) {
+            ConfigurationSection section = create(this, path);
+            return section != null ? section : super.createSection(path);
+        }
+
+        @Override
+        public void setComments(@NotNull String path, @Nullable List<String> comments) {
+            super.setComments(path, comments);
+            markRootDirty();
+        }
+
+        @Override
+        public void setInlineComments(@NotNull String path, @Nullable List<String> comments) {
+            super.setInlineComments(path, comments);
+            markRootDirty();
+        }
+
+        private void markRootDirty() {
+            if (getRoot() instanceof YamlFile file) file.markDirty();
+        }
+    }
 }
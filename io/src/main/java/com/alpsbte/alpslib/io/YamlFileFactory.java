@@ -1,20 +1,29 @@
 package com.alpsbte.alpslib.io;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.*;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 public abstract class YamlFileFactory {
@@ -24,33 +33,136 @@ public abstract class YamlFileFactory {
     }
 
     private final YamlFile[] yamlFiles;
+    private final YamlSaveQueue saveQueue = new YamlSaveQueue();
+    private YamlFileWatcher watcher;
 
     protected YamlFileFactory(@NotNull YamlFile[] yamlFiles) {
         this.yamlFiles = yamlFiles;
     }
 
     /**
-     * Saves YAML files
+     * Saves modified YAML files and waits until they are written.
+     * Every file is replaced atomically, so a crash during the save leaves the previous version intact.
      * @return true if file saved successfully
+     * @see YamlFile#isDirty()
      */
     public boolean saveFiles() {
-        Arrays.stream(yamlFiles).forEach(yamlFile -> {
-            try (BufferedWriter configWriter = new BufferedWriter(new FileWriter(yamlFile.getFile()))){
-                String configuration = this.prepareFileString(yamlFile.saveToString());
-
-                configWriter.write(configuration);
-                configWriter.flush();
-            } catch (IOException ex) {
-                Bukkit.getLogger().log(Level.SEVERE, "An error occurred while saving yaml file", ex);
-            }
-        });
+        Arrays.stream(yamlFiles).forEach(this::saveFileAsync);
+        saveQueue.flush();
         return true;
     }
 
+    /**
+     * Saves the given YAML file in the background if it was modified since it was last loaded or saved.
+     * The file is serialized on the calling thread, which should be the thread modifying it, and written after
+     * the {@link #getSaveDebounceMillis() debounce window}. Saves of the same file within the window are coalesced
+     * into a single write of the latest content. The file is replaced atomically.
+     * @param yamlFile YAML file
+     * @return future completed once the file is written, or completed exceptionally if the write failed
+     * @see YamlFile#isDirty()
+     */
+    public CompletableFuture<Void> saveFileAsync(YamlFile yamlFile) {
+        if (!yamlFile.isDirty()) return CompletableFuture.completedFuture(null);
+
+        yamlFile.markClean();
+        CompletableFuture<Void> saved = saveQueue.submit(yamlFile, yamlFile.saveToString(), getSaveDebounceMillis(), isFingerprintCheckEnabled());
+        saved.whenComplete((result, ex) -> {
+            if (ex != null) yamlFile.markDirty();
+        });
+        return saved;
+    }
+
+    /**
+     * Saves modified YAML files in the background
+     * @return future completed once all files are written
+     * @see #saveFileAsync(YamlFile)
+     */
+    public CompletableFuture<Void> saveFilesAsync() {
+        return CompletableFuture.allOf(Arrays.stream(yamlFiles).map(this::saveFileAsync).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Writes all YAML files with a pending background save immediately, waits until they are written
+     * and stops the writer thread of this factory; a later save starts it again.
+     * Should be called in {@code onDisable}, so no saves are lost and no thread is left behind when the plugin stops.
+     */
+    public void flushSaves() {
+        saveQueue.close();
+    }
+
+    /**
+     * Starts reloading YAML files automatically when they are edited on disk.
+     * Files are reloaded in the background and swapped in on the main thread, see {@link YamlFileWatcher}.
+     * Must be called on the main thread, as the loaded values of the files are the base of the first comparison.
+     * @return the watcher of this factory, to register reload listeners
+     */
+    public synchronized YamlFileWatcher watchFiles() throws IOException {
+        if (watcher == null) watcher = new YamlFileWatcher(yamlFiles, getReloadDebounceMillis(), saveQueue);
+        return watcher;
+    }
+
+    /**
+     * Stops reloading YAML files automatically. Should be called in {@code onDisable} if {@link #watchFiles()} was used.
+     */
+    public synchronized void stopWatching() {
+        if (watcher == null) return;
+        watcher.close();
+        watcher = null;
+    }
+
+    private synchronized boolean isWatching() {
+        return watcher != null;
+    }
+
+    /**
+     * Time the watcher waits for further changes of an edited file before reloading it.
+     * This method is used to override.
+     * @return debounce window in milliseconds
+     */
+    protected long getReloadDebounceMillis() {
+        return 500L;
+    }
+
+    /**
+     * Time a background save waits for further saves of the same file before writing it.
+     * This method is used to override.
+     * @return debounce window in milliseconds
+     */
+    protected long getSaveDebounceMillis() {
+        return 1000L;
+    }
+
+    /**
+     * Whether a save is skipped if the serialized file is identical to the file on disk, compared by a SHA-256 hash
+     * taken on load and save. Saves the write of files that were modified and changed back, at the cost of hashing
+     * every file on load and save. This method is used to override.
+     * @return true to compare fingerprints before writing
+     */
+    protected boolean isFingerprintCheckEnabled() {
+        return false;
+    }
+
+    /**
+     * Whether parsed files are cached in a binary snapshot next to them, which is loaded instead of parsing the file
+     * as long as the size, modification time and SHA-256 hash of the file are unchanged, see {@link YamlSnapshot}.
+     * Speeds up startup with many or large files, at the cost of hashing every file on load and a hidden
+     * {@code .<file name>.snapshot} file per file. This method is used to override.
+     * @return true to load files from snapshots
+     */
+    protected boolean isSnapshotCacheEnabled() {
+        return false;
+    }
+
+    /**
+     * Reloads the given YAML file, logging any error
+     * @param yamlFile YAML file
+     * @return true if file reloaded successfully
+     * @throws IllegalArgumentException if the file contains a tab
+     * @see #loadFile(YamlFile)
+     */
     public boolean reloadFile(YamlFile yamlFile) {
-        try (@NotNull Reader fileReader = getConfigContent(yamlFile)){
-            if (!this.scanFile(yamlFile)) throw new IOException();
-            yamlFile.load(fileReader);
+        try {
+            loadFile(yamlFile);
         } catch (IOException | InvalidConfigurationException ex) {
             Bukkit.getLogger().log(Level.SEVERE, "An error occurred while reloading yaml file", ex);
             return false;
@@ -59,14 +171,95 @@ public abstract class YamlFileFactory {
     }
 
     /**
-     * Reloads YAML files
+     * Loads the given YAML file in a single pass: the file is read once, scanned for tabs,
+     * and parsed directly into the {@link YamlFile}. Comments and blank lines are kept by the
+     * comment parser of the configuration and written back on save.
+     * If {@link #isSnapshotCacheEnabled()}, the file is loaded from its snapshot instead while it is unchanged.
+     * @param yamlFile YAML file
+     * @throws IllegalArgumentException if the file contains a tab
+     */
+    protected void loadFile(YamlFile yamlFile) throws IOException, InvalidConfigurationException {
+        yamlFile.options().parseComments(true);
+        if (!isSnapshotCacheEnabled()) {
+            yamlFile.loadFromString(readFile(yamlFile));
+            return;
+        }
+
+        if (!yamlFile.getFile().exists()) throw new FileNotFoundException(yamlFile.getFile().getAbsolutePath());
+        Path path = yamlFile.getFile().toPath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        byte[] bytes = Files.readAllBytes(path);
+        byte[] hash = YamlSaveQueue.sha256(bytes);
+        if (!YamlSnapshot.load(yamlFile, attributes, hash)) {
+            yamlFile.loadFromString(decode(yamlFile, bytes));
+            YamlSnapshot.write(yamlFile, attributes, hash);
+        }
+        yamlFile.setFingerprint(isFingerprintCheckEnabled() || isWatching() ? hash : null);
+    }
+
+    /**
+     * Reloads YAML files in parallel
      * @return true if file reloaded successfully
      */
     public boolean reloadFiles() {
-        Arrays.stream(yamlFiles).forEach(this::reloadFile);
+        loadFiles(yamlFiles, this::loadFile);
         return true;
     }
 
+    /**
+     * Runs the given loader for every YAML file in parallel on a pool bounded by the number of processors.
+     * Only reading and parsing should run in the loader; hooks which may touch other files or shared state,
+     * such as {@link #updateFile(YamlFile)}, run sequentially on the returned files afterwards.
+     * Once all files are done, errors are reported in the order of the files, followed by the time spent on every file:
+     * read and parse errors are logged and the file is skipped, while any other error is rethrown,
+     * the first one in file order if several files failed.
+     * @param files YAML files
+     * @param loader Reads and parses a single file
+     * @return the files loaded successfully, in the order of the given files
+     */
+    protected <F extends YamlFile> List<F> loadFiles(F @NotNull [] files, @NotNull FileLoader<F> loader) {
+        long start = System.nanoTime();
+        int threads = Math.max(1, Math.min(files.length, Runtime.getRuntime().availableProcessors()));
+        List<Future<Long>> results = new ArrayList<>(files.length);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("alpslib-yaml-loader-", 0).daemon().factory())) {
+            for (F file : files) {
+                results.add(executor.submit(() -> {
+                    long fileStart = System.nanoTime();
+                    loader.load(file);
+                    return System.nanoTime() - fileStart;
+                }));
+            }
+        }
+
+        List<F> loaded = new ArrayList<>(files.length);
+        Throwable failure = null;
+        String failedFile = null;
+        StringJoiner timings = new StringJoiner(", ");
+        for (int i = 0; i < files.length; i++) {
+            try {
+                timings.add(files[i].getFileName() + " " + TimeUnit.NANOSECONDS.toMillis(results.get(i).get()) + " ms");
+                loaded.add(files[i]);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                timings.add(files[i].getFileName() + " failed");
+                if (cause instanceof IOException || cause instanceof InvalidConfigurationException || failure != null) {
+                    Bukkit.getLogger().log(Level.SEVERE, "An error occurred while loading yaml file " + files[i].getFileName(), cause);
+                } else {
+                    failure = cause;
+                    failedFile = files[i].getFileName();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt(); // Not thrown, all tasks are done once the executor is closed
+            }
+        }
+        Bukkit.getLogger().info("Loaded " + files.length + " yaml files in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms (" + timings + ")");
+
+        if (failure instanceof RuntimeException ex) throw ex;
+        if (failure instanceof Error err) throw err;
+        if (failure != null) throw new IllegalStateException("An error occurred while loading yaml file " + failedFile, failure);
+        return loaded;
+    }
+
     /**
      * Scans the given YAML file for tabs
      * Any file loaded using the API in this class is automatically scanned
@@ -76,18 +269,8 @@ public abstract class YamlFileFactory {
     public boolean scanFile(YamlFile yamlFile) {
         if (!yamlFile.getFile().exists()) return false;
 
-        int lineNumber = 0;
-        String line;
-        try (Scanner scanner = new Scanner(yamlFile.getFile())) {
-            while (scanner.hasNextLine()) {
-                line = scanner.nextLine();
-                lineNumber++;
-
-                if (line.contains("\t")) {
-                    Bukkit.getConsoleSender().sendMessage(ChatColor.RED + "Tab found in file '" + yamlFile.getFile().getAbsolutePath() + "' on line #" + lineNumber + "!");
-                    throw new IllegalArgumentException("Tab found in file '" + yamlFile.getFile().getAbsolutePath() + "' on line # " + line + "!");
-                }
-            }
+        try {
+            scanTabs(yamlFile, Files.readAllBytes(yamlFile.getFile().toPath()));
             return true;
         } catch (IOException ex) {
             Bukkit.getLogger().log(Level.SEVERE, "An error occurred while scanning yaml file", ex);
@@ -132,102 +315,84 @@ public abstract class YamlFileFactory {
         // Update file
         try {
             List<String> currentFileLines = FileUtils.readLines(yamlFile.getFile(), StandardCharsets.UTF_8);
-            List<String> defaultFileLines = yamlFile.readDefaultFile();
-
-            currentFileLines.removeIf(s -> s.trim().isEmpty() || s.trim().startsWith("#") || s.split(":").length == 1);
-            currentFileLines.forEach(s -> {
-                String[] a = s.split(":");
-                String newS = String.join(":", Arrays.copyOfRange(a, 1, a.length));
-                int index = getIndex(a[0], defaultFileLines);
-                if (index > -1)
-                    defaultFileLines.set(index, defaultFileLines.get(index).split(":")[0] + ":" + newS);
-            });
-
-            defaultFileLines.set(getIndex("config-version", defaultFileLines), "config-version: " + yamlFile.getVersion());
-            Files.write(yamlFile.getFile().toPath(), defaultFileLines);
+            List<String> updatedFileLines = getMigrator(yamlFile).migrate(currentFileLines, yamlFile.readDefaultFile(), yamlFile.getVersion());
+            YamlSaveQueue.writeAtomically(yamlFile.getFile().toPath(), (String.join(System.lineSeparator(), updatedFileLines) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
             Bukkit.getConsoleSender().sendMessage(ChatColor.YELLOW + "Updated " + yamlFile.getFileName() + " to version " + yamlFile.getVersion() + ".");
             return true;
-        } catch (IOException ex) {
+        } catch (IOException | IllegalArgumentException ex) {
             Bukkit.getLogger().log(Level.SEVERE, "An error occurred while updating config file", ex);
         }
         return false;
     }
 
     /**
-     * Prepares the YAML file for parsing with SnakeYAML
-     * @param yamlFileString the YAML file as string
-     * @return Ready-to-parse file
+     * Returns the migrator used to update a YAML file to its current version, see {@link #updateFile(YamlFile)}.
+     * Override to register migration steps, e.g. for renamed keys.
+     * @param yamlFile YAML file to update
+     * @return migrator for the file
      */
-    private String prepareFileString (String yamlFileString) {
-        String[] lines = yamlFileString.split("\n");
-        StringBuilder config = new StringBuilder();
+    protected YamlMigrator getMigrator(YamlFile yamlFile) {
+        return new YamlMigrator();
+    }
 
-        for (String line : lines) {
-            if (line.startsWith("COMMENT")) {
-                String comment = "#" + line.substring(line.indexOf(":") + 1).replace("'", "");
-                config.append(comment).append("\n");
-            } else if (line.startsWith("EMPTY_SPACE")) {
-                config.append("\n");
-            } else {
-                config.append(line).append("\n");
-            }
-        }
+    /**
+     * Reads the YAML file, scanning it for tabs and removing the UTF-8 byte order mark
+     * @param yamlFile YAML file
+     * @return file content
+     */
+    private String readFile(YamlFile yamlFile) throws IOException {
+        if (!yamlFile.getFile().exists()) throw new FileNotFoundException(yamlFile.getFile().getAbsolutePath());
 
-        return config.toString();
+        byte[] bytes = Files.readAllBytes(yamlFile.getFile().toPath());
+        String content = decode(yamlFile, bytes);
+        yamlFile.setFingerprint(isFingerprintCheckEnabled() || isWatching() ? YamlSaveQueue.sha256(bytes) : null);
+        return content;
     }
 
     /**
-     * Read YAML file and make comments SnakeYAML friendly
-     * @param yamlFile YAML file
-     * @return file as InputStreamReader (Reader)
-     */
-    private Reader getConfigContent(YamlFile yamlFile) {
-        if (!yamlFile.getFile().exists()) return new InputStreamReader(IOUtils.toInputStream("", StandardCharsets.UTF_8));
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(yamlFile.getFile().toPath()),  StandardCharsets.UTF_8))) {
-            int commentNum = 0;
-            int emptySpaceNum = 0;
-            String addLine;
-            String currentLine;
-
-            StringBuilder whole = new StringBuilder();
-
-            // Convert config file
-            while ((currentLine = reader.readLine()) != null) {
-                currentLine = currentLine.replace("\uFEFF", ""); // fix for UTF-8 BOM encoding
-
-                // Add comment
-                if (currentLine.startsWith("#")) {
-                    addLine = (currentLine.replaceFirst("#", "COMMENT_" + commentNum + ":")
-                            .replaceFirst(":", ": '") + "'")
-                            .replaceFirst("' ", "'");
-                    whole.append(addLine).append("\n");
-                    commentNum++;
-
-                    // Add empty space
-                } else if (currentLine.equals(" ") || currentLine.isEmpty()) {
-                    addLine = "EMPTY_SPACE_" + emptySpaceNum + ": ''";
-                    whole.append(addLine).append("\n");
-                    emptySpaceNum++;
-
-                    // Add config value
-                } else {
-                    whole.append(currentLine).append("\n");
-                }
-            }
-            String configContent = whole.toString();
-            reader.close();
+     * Decodes the content of a YAML file, scanning it for tabs and removing the UTF-8 byte order mark
+     * @param yamlFile YAML file the bytes were read from
+     * @param bytes file content
+     * @return file content
+     * @throws IllegalArgumentException if the file contains a tab
+     */
+    static String decode(YamlFile yamlFile, byte[] bytes) {
+        scanTabs(yamlFile, bytes);
+        int offset = bytes.length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF ? 3 : 0; // fix for UTF-8 BOM encoding
+        return new String(bytes, offset, bytes.length - offset, StandardCharsets.UTF_8);
+    }
 
-            return new InputStreamReader(new ByteArrayInputStream(configContent.getBytes()), StandardCharsets.UTF_8);
-        } catch (IOException ex) {
-            Bukkit.getLogger().log(Level.SEVERE, "An error occurred while parsing config file", ex);
-            return new InputStreamReader(IOUtils.toInputStream("", StandardCharsets.UTF_8));
+    /**
+     * Scans the raw bytes of a YAML file for tabs, which are not allowed for indentation
+     * @param yamlFile YAML file the bytes were read from
+     * @param bytes file content
+     */
+    private static void scanTabs(YamlFile yamlFile, byte[] bytes) {
+        int lineNumber = 1;
+        for (byte b : bytes) {
+            if (b == '\n') {
+                lineNumber++;
+            } else if (b == '\t') {
+                Bukkit.getConsoleSender().sendMessage(ChatColor.RED + "Tab found in file '" + yamlFile.getFile().getAbsolutePath() + "' on line #" + lineNumber + "!");
+                throw new IllegalArgumentException("Tab found in file '" + yamlFile.getFile().getAbsolutePath() + "' on line #" + lineNumber + "!");
+            }
         }
     }
 
+    /**
+     * Reads and parses a single YAML file, see {@link #loadFiles(YamlFile[], FileLoader)}
+     * @param <F> type of the YAML file
+     */
+    @FunctionalInterface
+    protected interface FileLoader<F extends YamlFile> {
+        void load(F yamlFile) throws IOException, InvalidConfigurationException;
+    }
+
     /**
      * @return line index in list
+     * @deprecated searches the whole list for every line and does not tell nested keys apart, use {@link YamlMigrator} instead
      */
+    @Deprecated
     public int getIndex(String line, List<String> list) {
         for (String s : list)
             if (s.startsWith(line) || s.equalsIgnoreCase(line))
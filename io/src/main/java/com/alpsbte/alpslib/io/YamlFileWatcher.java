@@ -0,0 +1,225 @@
+package com.alpsbte.alpslib.io;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Reloads the YAML files of a {@link YamlFileFactory} when they are edited on disk, see {@link YamlFileFactory#watchFiles()}.
+ * <p>
+ * File events are debounced, so the burst of writes of an editor saving a file causes a single reload.
+ * A file is only reloaded if the hash of its content differs from the content last loaded or saved.
+ * The file is read, parsed and compared with its previous values in the background; the new values are
+ * then swapped in on the main thread within a single tick, and the listeners are notified of the changed keys.
+ * A file with unsaved changes or a pending asynchronous save is not reloaded, so the changes are not lost
+ * and the reloaded values are not overwritten by the queued write.
+ * </p>
+ */
+public final class YamlFileWatcher implements AutoCloseable {
+    private final Map<Path, YamlFile> files = new HashMap<>();
+    private final Map<YamlFile, Map<String, Object>> snapshots = new ConcurrentHashMap<>();
+    private final Map<YamlFile, ScheduledFuture<?>> pending = new HashMap<>();
+    private final List<ReloadListener> listeners = new CopyOnWriteArrayList<>();
+    private final long debounceMillis;
+    private final YamlSaveQueue saveQueue;
+    private final WatchService watchService;
+    private final ScheduledExecutorService reloader;
+    private final Thread watcher;
+
+    YamlFileWatcher(YamlFile @NotNull [] yamlFiles, long debounceMillis, @NotNull YamlSaveQueue saveQueue) throws IOException {
+        this.debounceMillis = debounceMillis;
+        this.saveQueue = saveQueue;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (YamlFile yamlFile : yamlFiles) {
+            Path path = yamlFile.getFile().toPath().toAbsolutePath().normalize();
+            files.put(path, yamlFile);
+            directories.add(path.getParent());
+        }
+        for (Path directory : directories) {
+            // Editors often replace the file instead of modifying it, which is reported as a creation
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+
+        files.values().forEach(yamlFile -> snapshots.put(yamlFile, values(yamlFile)));
+        this.reloader = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("alpslib-yaml-reloader").daemon().factory());
+        files.forEach((path, yamlFile) -> {
+            if (yamlFile.getFingerprint() == null) reloader.execute(() -> fingerprint(path, yamlFile));
+        });
+        this.watcher = Thread.ofPlatform().name("alpslib-yaml-watcher").daemon().start(this::watch);
+    }
+
+    /**
+     * Adds a listener notified on the main thread after a file was reloaded with changed values.
+     * @param listener listener to add
+     */
+    public void addListener(@NotNull ReloadListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull ReloadListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops watching the files. Reloads already in progress may still be applied.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            Bukkit.getLogger().log(Level.WARNING, "An error occurred while closing yaml file watcher", ex);
+        }
+        reloader.shutdownNow();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (!(event.context() instanceof Path name)) continue; // Overflow
+                    YamlFile yamlFile = files.get(directory.resolve(name));
+                    if (yamlFile != null) schedule(directory.resolve(name), yamlFile);
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Watcher closed
+        }
+    }
+
+    private void schedule(Path path, YamlFile yamlFile) {
+        ScheduledFuture<?> previous = pending.put(yamlFile, reloader.schedule(() -> reload(path, yamlFile), debounceMillis, TimeUnit.MILLISECONDS));
+        if (previous != null) previous.cancel(false);
+    }
+
+    /**
+     * Records the hash of a file loaded before watching started, so an unchanged file is not reloaded.
+     */
+    private void fingerprint(Path path, YamlFile yamlFile) {
+        try {
+            byte[] hash = YamlSaveQueue.sha256(Files.readAllBytes(path));
+            if (yamlFile.getFingerprint() == null) yamlFile.setFingerprint(hash);
+        } catch (IOException ignored) {
+            // Missing or unreadable, the next event reloads the file
+        }
+    }
+
+    private void reload(Path path, YamlFile yamlFile) {
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            byte[] hash = YamlSaveQueue.sha256(bytes);
+            if (Arrays.equals(hash, yamlFile.getFingerprint())) return; // Unchanged or written by a save
+
+            YamlConfiguration parsed = parse(yamlFile, bytes);
+            Map<String, Object> values = values(parsed);
+            Set<String> changedKeys = diff(snapshots.getOrDefault(yamlFile, Map.of()), values);
+            Bukkit.getScheduler().runTask(YamlFileFactory.yamlPlugin, () -> apply(yamlFile, parsed, hash, values, changedKeys));
+        } catch (NoSuchFileException ignored) {
+            // Replaced by an editor, the creation of the new file schedules another reload
+        } catch (IOException | InvalidConfigurationException | IllegalArgumentException ex) {
+            Bukkit.getLogger().log(Level.SEVERE, "An error occurred while reloading yaml file " + yamlFile.getFileName(), ex);
+        }
+    }
+
+    private void apply(YamlFile yamlFile, YamlConfiguration parsed, byte[] hash, Map<String, Object> values, Set<String> changedKeys) {
+        if (yamlFile.isDirty()) {
+            Bukkit.getLogger().warning("Yaml file " + yamlFile.getFileName() + " was edited on disk but has unsaved changes, it is not reloaded.");
+            return;
+        }
+        if (saveQueue.hasPendingWrite(yamlFile)) {
+            Bukkit.getLogger().warning("Yaml file " + yamlFile.getFileName() + " was edited on disk while a save is pending, it is not reloaded.");
+            return;
+        }
+
+        yamlFile.replaceContents(parsed);
+        yamlFile.setFingerprint(hash);
+        snapshots.put(yamlFile, values);
+        if (changedKeys.isEmpty()) return;
+
+        Bukkit.getLogger().info("Reloaded " + yamlFile.getFileName() + " (" + changedKeys.size() + " changed keys)");
+        for (ReloadListener listener : listeners) {
+            try {
+                listener.onReload(yamlFile, changedKeys);
+            } catch (RuntimeException ex) {
+                Bukkit.getLogger().log(Level.SEVERE, "An error occurred in a yaml reload listener", ex);
+            }
+        }
+    }
+
+    private static @NotNull YamlConfiguration parse(YamlFile yamlFile, byte[] bytes) throws InvalidConfigurationException {
+        YamlConfiguration parsed = new YamlConfiguration();
+        parsed.options().parseComments(true);
+        parsed.loadFromString(YamlFileFactory.decode(yamlFile, bytes));
+        return parsed;
+    }
+
+    /**
+     * @return the values of all keys which are not sections, by their full path
+     */
+    private static @NotNull Map<String, Object> values(@NotNull ConfigurationSection section) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        section.getValues(true).forEach((key, value) -> {
+            if (!(value instanceof ConfigurationSection)) values.put(key, value);
+        });
+        return values;
+    }
+
+    /**
+     * @return the keys which were added, removed or changed
+     */
+    private static @NotNull Set<String> diff(@NotNull Map<String, Object> before, @NotNull Map<String, Object> after) {
+        Set<String> changed = new HashSet<>();
+        after.forEach((key, value) -> {
+            if (!Objects.equals(before.get(key), value)) changed.add(key);
+        });
+        before.keySet().forEach(key -> {
+            if (!after.containsKey(key)) changed.add(key);
+        });
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Notified on the main thread after a file was reloaded, see {@link #addListener(ReloadListener)}.
+     */
+    @FunctionalInterface
+    public interface ReloadListener {
+        /**
+         * @param yamlFile    the reloaded file
+         * @param changedKeys full paths of the values which were added, removed or changed
+         */
+        void onReload(@NotNull YamlFile yamlFile, @NotNull Set<String> changedKeys);
+    }
+}
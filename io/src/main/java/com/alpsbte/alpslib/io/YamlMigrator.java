@@ -0,0 +1,302 @@
+package com.alpsbte.alpslib.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Upgrades a YAML file to a new version of its default file, keeping the values of the existing file.
+ * <p>
+ * Both documents are indexed line by line into their full key paths, so nested keys with the same name in
+ * different sections are told apart, and every value is found without searching. A value spans its key line
+ * and all following lines belonging to it, such as list items or block scalars, so lists are carried over completely.
+ * The result is the default file, with its comments, order and new keys, in which every value that also exists
+ * in the existing file is replaced by the existing value. Keys missing from the default file are dropped.
+ * The merge takes time linear in the length of both files.
+ * </p>
+ * <p>
+ * Migration steps adapt the existing values to a newer layout before they are merged, e.g. to rename a key.
+ * Every step is registered with the version it upgrades to and runs if the existing file is older than that
+ * version, in ascending order of versions.
+ * </p>
+ * <pre>{@code
+ * YamlMigrator migrator = new YamlMigrator()
+ *         .addStep(1.3, values -> values.rename("database.name", "database.dbname"))
+ *         .addStep(1.4, values -> values.remove("legacy-mode"));
+ * List<String> upgraded = migrator.migrate(currentLines, defaultLines, 1.4);
+ * }</pre>
+ */
+public final class YamlMigrator {
+    public static final String VERSION_PATH = "config-version";
+
+    private final TreeMap<Double, List<Step>> steps = new TreeMap<>();
+
+    /**
+     * Registers a migration step.
+     * @param version the version the step upgrades to
+     * @param step the step
+     * @return this migrator
+     */
+    public @NotNull YamlMigrator addStep(double version, @NotNull Step step) {
+        steps.computeIfAbsent(version, v -> new ArrayList<>()).add(step);
+        return this;
+    }
+
+    /**
+     * Merges the values of the existing file into the default file and sets the version of the result.
+     * @param currentLines lines of the existing file
+     * @param defaultLines lines of the default file of the target version
+     * @param targetVersion the version written to the {@value #VERSION_PATH} key
+     * @return lines of the upgraded file
+     * @throws IllegalArgumentException if the default file is empty or has no {@value #VERSION_PATH} key,
+     *                                  e.g. because it could not be read, so the existing file must not be replaced
+     */
+    public @NotNull List<String> migrate(@NotNull List<String> currentLines, @NotNull List<String> defaultLines, double targetVersion) {
+        currentLines = stripBom(currentLines);
+        defaultLines = stripBom(defaultLines);
+        if (defaultLines.isEmpty()) throw new IllegalArgumentException("The default file is empty.");
+        Index defaults = Index.of(defaultLines);
+        Entry versionEntry = defaults.entries.get(VERSION_PATH);
+        if (versionEntry == null || versionEntry.section) throw new IllegalArgumentException("The default file has no " + VERSION_PATH + " key.");
+
+        Values values = new Values(Index.of(currentLines));
+
+        double currentVersion = values.getVersion();
+        if (currentVersion < targetVersion) {
+            for (List<Step> versionSteps : steps.subMap(currentVersion, false, targetVersion, true).values()) {
+                for (Step step : versionSteps) step.apply(values);
+            }
+        }
+        values.set(VERSION_PATH, String.valueOf(targetVersion));
+
+        List<String> merged = new ArrayList<>(defaultLines.size());
+        int line = 0;
+        for (Entry entry : defaults.entries.values()) {
+            Value value = entry.section ? null : values.values.get(entry.path);
+            if (value == null) continue;
+
+            while (line < entry.start) merged.add(defaultLines.get(line++));
+            String indent = " ".repeat(entry.indent);
+            merged.add(defaultLines.get(entry.start).substring(0, entry.colon + 1) + value.first);
+            for (String continuation : value.continuation) merged.add(continuation.isEmpty() ? continuation : indent + continuation);
+            line = entry.end;
+        }
+        while (line < defaultLines.size()) merged.add(defaultLines.get(line++));
+        return merged;
+    }
+
+    /**
+     * Adapts the existing values to the layout of a newer version.
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(@NotNull Values values);
+    }
+
+    /**
+     * The values of the existing file by their full key paths, as seen by the migration steps.
+     * Values are kept as written in the file, so comments and formatting of carried over values are preserved.
+     */
+    public static final class Values {
+        private final Map<String, Value> values = new LinkedHashMap<>();
+
+        private Values(@NotNull Index index) {
+            for (Entry entry : index.entries.values()) {
+                if (entry.section) continue;
+                String keyLine = index.lines.get(entry.start);
+                List<String> continuation = new ArrayList<>(entry.end - entry.start - 1);
+                for (int i = entry.start + 1; i < entry.end; i++) {
+                    String line = index.lines.get(i);
+                    continuation.add(line.isBlank() ? "" : line.substring(Math.min(entry.indent, indentOf(line))));
+                }
+                values.put(entry.path, new Value(keyLine.substring(entry.colon + 1), continuation));
+            }
+        }
+
+        /**
+         * @param path full key path
+         * @return whether the path has a value which is not a section
+         */
+        public boolean contains(@NotNull String path) {
+            return values.containsKey(path);
+        }
+
+        /**
+         * @param path full key path
+         * @return the scalar value of the path without quotes and comments, or null if it has no scalar value
+         */
+        public @Nullable String get(@NotNull String path) {
+            Value value = values.get(path);
+            if (value == null || !value.continuation.isEmpty()) return null;
+            String scalar = value.first.trim();
+            if (scalar.startsWith("'") || scalar.startsWith("\"")) {
+                int end = scalar.lastIndexOf(scalar.charAt(0));
+                return end > 0 ? scalar.substring(1, end) : scalar.substring(1);
+            }
+            int comment = scalar.indexOf(" #");
+            return comment >= 0 ? scalar.substring(0, comment).trim() : scalar;
+        }
+
+        /**
+         * Sets the value of a path to a scalar, written as is.
+         * @param path full key path
+         * @param value YAML scalar, quoted if necessary
+         */
+        public void set(@NotNull String path, @NotNull String value) {
+            values.put(path, new Value(" " + value, List.of()));
+        }
+
+        /**
+         * Moves the value of a path, or all values below it if it is a section, to another path.
+         * @param from full key path to move
+         * @param to new full key path
+         */
+        public void rename(@NotNull String from, @NotNull String to) {
+            Map<String, Value> moved = new LinkedHashMap<>();
+            values.entrySet().removeIf(entry -> {
+                String path = entry.getKey();
+                if (path.equals(from)) moved.put(to, entry.getValue());
+                else if (path.startsWith(from + ".")) moved.put(to + path.substring(from.length()), entry.getValue());
+                else return false;
+                return true;
+            });
+            values.putAll(moved);
+        }
+
+        /**
+         * Removes the value of a path, or all values below it if it is a section.
+         * @param path full key path
+         */
+        public void remove(@NotNull String path) {
+            values.keySet().removeIf(key -> key.equals(path) || key.startsWith(path + "."));
+        }
+
+        private double getVersion() {
+            try {
+                String version = get(VERSION_PATH);
+                return version != null ? Double.parseDouble(version) : 0;
+            } catch (NumberFormatException ex) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A value as written in the file: the rest of the key line after the colon, and the following lines of the value
+     * with the indentation of the key removed.
+     */
+    private record Value(String first, List<String> continuation) {}
+
+    /**
+     * A key of the document, spanning the lines from its key line up to but excluding {@code end}.
+     * Sections end at their key line, their children are separate entries.
+     */
+    private static final class Entry {
+        private final String path;
+        private final int start;
+        private final int indent;
+        private final int colon;
+        private final boolean blockScalar;
+        private int end;
+        private boolean section;
+
+        private Entry(String path, int start, int indent, int colon, boolean blockScalar) {
+            this.path = path;
+            this.start = start;
+            this.indent = indent;
+            this.colon = colon;
+            this.blockScalar = blockScalar;
+            this.end = start + 1;
+        }
+    }
+
+    /**
+     * Index of all keys of a document by their full paths.
+     */
+    private record Index(List<String> lines, Map<String, Entry> entries) {
+        private static @NotNull Index of(@NotNull List<String> lines) {
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            List<Entry> parents = new ArrayList<>();
+            Entry open = null;
+
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                int indent = indentOf(line);
+                boolean listItem = trimmed.startsWith("- ") || trimmed.equals("-");
+
+                if (open != null && (indent > open.indent || listItem && indent == open.indent)) {
+                    // The line belongs to the value of the open key, unless it is the first child of a section
+                    int colon = listItem || open.blockScalar || !isEmptyValue(lines.get(open.start), open.colon) || open.end > open.start + 1
+                            ? -1 : keyColon(trimmed);
+                    if (colon < 0) {
+                        open.end = i + 1;
+                        continue;
+                    }
+                    open.section = true;
+                }
+                if (listItem) continue; // List without a key, e.g. the root of the document
+
+                int colon = keyColon(trimmed);
+                if (colon < 0) continue;
+                while (!parents.isEmpty() && parents.getLast().indent >= indent) parents.removeLast();
+
+                String key = unquote(trimmed.substring(0, colon));
+                String path = parents.isEmpty() ? key : parents.getLast().path + "." + key;
+                String value = trimmed.substring(colon + 1).trim();
+                open = new Entry(path, i, indent, indent + colon, value.startsWith("|") || value.startsWith(">"));
+                entries.put(path, open);
+                parents.add(open);
+            }
+            return new Index(lines, entries);
+        }
+    }
+
+    private static @NotNull List<String> stripBom(@NotNull List<String> lines) {
+        if (lines.isEmpty() || !lines.getFirst().startsWith("\uFEFF")) return lines;
+        List<String> stripped = new ArrayList<>(lines);
+        stripped.set(0, lines.getFirst().substring(1));
+        return stripped;
+    }
+
+    private static boolean isEmptyValue(@NotNull String line, int colon) {
+        String value = line.substring(colon + 1).trim();
+        return value.isEmpty() || value.startsWith("#");
+    }
+
+    /**
+     * @return index of the colon ending the key of the trimmed line, or -1 if the line is not a key
+     */
+    private static int keyColon(@NotNull String trimmed) {
+        char first = trimmed.charAt(0);
+        int from = 0;
+        if (first == '\'' || first == '"') {
+            from = trimmed.indexOf(first, 1);
+            if (from < 0) return -1;
+        }
+        for (int i = from; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) == ':' && (i + 1 == trimmed.length() || trimmed.charAt(i + 1) == ' ')) return i;
+        }
+        return -1;
+    }
+
+    private static @NotNull String unquote(@NotNull String key) {
+        key = key.trim();
+        if (key.length() >= 2 && (key.charAt(0) == '\'' || key.charAt(0) == '"') && key.charAt(key.length() - 1) == key.charAt(0)) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    private static int indentOf(@NotNull String line) {
+        int indent = 0;
+        while (indent < line.length() && line.charAt(indent) == ' ') indent++;
+        return indent;
+    }
+}
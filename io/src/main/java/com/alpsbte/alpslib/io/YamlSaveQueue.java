@@ -0,0 +1,221 @@
+package com.alpsbte.alpslib.io;
+
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Writes YAML files on a background thread, coalescing repeated saves of the same file.
+ * <p>
+ * A save request stores the serialized content of the file and schedules a write after the debounce window.
+ * Further requests within the window only replace the content, so the file is written once with the latest content.
+ * Every file is written to a temporary file next to it and atomically moved over it, so a crash during the write
+ * leaves the previous version intact. All writes of a queue run on a single thread, so they happen in request order.
+ * The thread is started by the first save and stopped by {@link #close()}, so it does not outlive the plugin.
+ * </p>
+ */
+final class YamlSaveQueue {
+    private final Map<YamlFile, Pending> pending = new IdentityHashMap<>();
+    private ScheduledExecutorService writer;
+    private YamlFile writing;
+
+    /**
+     * Schedules a write of the given content, replacing the content of a write of the same file that has not started yet.
+     *
+     * @param yamlFile       The file to write
+     * @param content        The serialized content of the file
+     * @param debounceMillis The time to wait for further saves of the file before writing it
+     * @param skipUnchanged  Whether to skip the write if the content matches the fingerprint of the file
+     * @return A future completed once the content has been written
+     */
+    synchronized @NotNull CompletableFuture<Void> submit(@NotNull YamlFile yamlFile, @NotNull String content, long debounceMillis,
+                                                         boolean skipUnchanged) {
+        Pending write = pending.get(yamlFile);
+        if (write == null) {
+            Pending next = new Pending();
+            if (writer == null) writer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("alpslib-yaml-writer").daemon().factory());
+            next.task = writer.schedule(() -> run(yamlFile, next), debounceMillis, TimeUnit.MILLISECONDS);
+            pending.put(yamlFile, next);
+            write = next;
+        }
+        write.content = content;
+        write.skipUnchanged = skipUnchanged;
+        return write.future.copy();
+    }
+
+    /**
+     * Tells whether a write of the given file is scheduled or in progress, so its content on disk is about to be replaced.
+     *
+     * @param yamlFile The file
+     * @return Whether the file has a pending write
+     */
+    synchronized boolean hasPendingWrite(@NotNull YamlFile yamlFile) {
+        return writing == yamlFile || pending.containsKey(yamlFile);
+    }
+
+    /**
+     * Writes all pending files immediately and waits until they and any write in progress are done.
+     */
+    void flush() {
+        flush(false);
+    }
+
+    /**
+     * Writes all pending files immediately, waits until they are done and stops the writer thread.
+     * A later save starts a new writer thread.
+     */
+    void close() {
+        flush(true);
+    }
+
+    private void flush(boolean stop) {
+        List<Map.Entry<YamlFile, Pending>> writes;
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            writes = new ArrayList<>(pending.entrySet());
+            pending.clear();
+            executor = writer;
+            if (stop) writer = null;
+        }
+        if (executor == null) return;
+        writes.forEach(write -> write.getValue().task.cancel(false));
+
+        try {
+            executor.submit(() -> writes.forEach(write -> write(write.getKey(), write.getValue()))).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Bukkit.getLogger().log(Level.SEVERE, "An error occurred while flushing yaml files", ex.getCause());
+        } finally {
+            if (stop) executor.shutdown();
+        }
+    }
+
+    private void run(YamlFile yamlFile, Pending write) {
+        synchronized (this) {
+            // Skip writes taken over by flush
+            if (!pending.remove(yamlFile, write)) return;
+        }
+        write(yamlFile, write);
+    }
+
+    private void write(YamlFile yamlFile, Pending write) {
+        synchronized (this) {
+            writing = yamlFile;
+        }
+        try {
+            // The write has been removed from the pending writes, so its content is not replaced anymore
+            byte[] bytes = write.content.getBytes(StandardCharsets.UTF_8);
+            byte[] fingerprint = yamlFile.getFingerprint();
+            if (fingerprint != null) {
+                // Keep the fingerprint of a tracked file up to date, but only skip identical writes if requested
+                byte[] hash = sha256(bytes);
+                if (!write.skipUnchanged || !Arrays.equals(hash, fingerprint)) writeAtomically(yamlFile.getFile().toPath(), bytes);
+                yamlFile.setFingerprint(hash);
+            } else {
+                writeAtomically(yamlFile.getFile().toPath(), bytes);
+            }
+            write.future.complete(null);
+        } catch (IOException | RuntimeException ex) {
+            Bukkit.getLogger().log(Level.SEVERE, "An error occurred while saving yaml file " + yamlFile.getFileName(), ex);
+            write.future.completeExceptionally(ex);
+        } finally {
+            synchronized (this) {
+                writing = null;
+            }
+        }
+    }
+
+    /**
+     * Writes the content to a temporary file in the same directory, forces it to disk and moves it over the target.
+     * The temporary file is created like any other new file and takes over the permissions and owner of the target,
+     * so replacing the target does not change who can access it.
+     *
+     * @param target  The file to replace
+     * @param content The new content of the file
+     */
+    static void writeAtomically(@NotNull Path target, byte @NotNull [] content) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = directory.resolve("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.wrap(content);
+                while (bytes.hasRemaining()) channel.write(bytes);
+                channel.force(true);
+            }
+            copyOwnerAndPermissions(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Copies the POSIX permissions, owner and group of the target to the temporary file, if the target exists
+     * and the file system supports them. Changing the owner usually requires elevated rights and is skipped otherwise.
+     */
+    private static void copyOwnerAndPermissions(@NotNull Path target, @NotNull Path temp) throws IOException {
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        PosixFileAttributeView tempView = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        if (targetView == null || tempView == null || !Files.exists(target)) return;
+
+        PosixFileAttributes attributes = targetView.readAttributes();
+        tempView.setPermissions(attributes.permissions());
+        try {
+            if (!attributes.owner().equals(Files.getOwner(temp))) tempView.setOwner(attributes.owner());
+            tempView.setGroup(attributes.group());
+        } catch (FileSystemException ignored) {
+            // Not permitted to hand the file to another owner or group
+        }
+    }
+
+    /**
+     * @return SHA-256 hash of the given bytes
+     */
+    static byte @NotNull [] sha256(byte @NotNull [] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex); // Every Java platform supports SHA-256
+        }
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private ScheduledFuture<?> task;
+        private String content;
+        private boolean skipUnchanged;
+    }
+}
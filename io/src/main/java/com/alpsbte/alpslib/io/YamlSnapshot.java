@@ -0,0 +1,260 @@
+package com.alpsbte.alpslib.io;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Caches the parsed content of a YAML file in a binary snapshot next to it, see {@link YamlFileFactory#isSnapshotCacheEnabled()}.
+ * <p>
+ * The snapshot is a flat table of all sections and values of the file by their full paths, including their comments,
+ * and the header and footer of the file. It is keyed by the size, modification time and SHA-256 hash of the file
+ * it was taken from and only used while all of them match; otherwise the file is parsed and the snapshot rewritten.
+ * Snapshots are read into memory in one go, so no mapping keeps the file open, and written atomically. Files with values other than
+ * strings, numbers, booleans, lists and maps, such as serialized Bukkit objects, are not cached.
+ * </p>
+ */
+final class YamlSnapshot {
+    private static final int MAGIC = 0x414C5953; // ALYS
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte SECTION = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private YamlSnapshot() {}
+
+    /**
+     * Loads the snapshot of the file into it if the snapshot was taken from the same file content.
+     *
+     * @param yamlFile   The file to load
+     * @param attributes The attributes of the file on disk
+     * @param hash       The SHA-256 hash of the file content on disk
+     * @return true if the file was loaded from its snapshot, false if it has to be parsed
+     */
+    static boolean load(@NotNull YamlFile yamlFile, @NotNull BasicFileAttributes attributes, byte @NotNull [] hash) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path(yamlFile)));
+            if (buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION) return false;
+            if (buffer.getLong() != attributes.size() || buffer.getLong() != attributes.lastModifiedTime().toMillis()) return false;
+            byte[] snapshotHash = new byte[hash.length];
+            buffer.get(snapshotHash);
+            if (!Arrays.equals(snapshotHash, hash)) return false;
+
+            YamlConfiguration content = new YamlConfiguration();
+            content.options().setHeader(readStrings(buffer));
+            content.options().setFooter(readStrings(buffer));
+            for (int entries = buffer.getInt(); entries > 0; entries--) {
+                String path = readString(buffer);
+                byte type = buffer.get();
+                if (type == SECTION) content.createSection(path);
+                else content.set(path, readValue(buffer, type));
+                content.setComments(path, readStrings(buffer));
+                content.setInlineComments(path, readStrings(buffer));
+            }
+            yamlFile.replaceContents(content);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            // Missing, unreadable or corrupt snapshot, it is replaced after parsing the file
+            return false;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the loaded file, or deletes the snapshot if the file contains values which cannot be cached.
+     *
+     * @param yamlFile   The file which was just parsed
+     * @param attributes The attributes of the file on disk when it was read
+     * @param hash       The SHA-256 hash of the parsed file content
+     */
+    static void write(@NotNull YamlFile yamlFile, @NotNull BasicFileAttributes attributes, byte @NotNull [] hash) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(attributes.size());
+            out.writeLong(attributes.lastModifiedTime().toMillis());
+            out.write(hash);
+            writeStrings(out, yamlFile.options().getHeader());
+            writeStrings(out, yamlFile.options().getFooter());
+
+            List<String> paths = new ArrayList<>();
+            collectPaths(yamlFile, "", paths);
+            out.writeInt(paths.size());
+            for (String path : paths) {
+                writeString(out, path);
+                Object value = yamlFile.get(path);
+                if (value instanceof ConfigurationSection) {
+                    out.writeByte(SECTION);
+                } else if (!writeValue(out, value)) {
+                    delete(yamlFile);
+                    return;
+                }
+                writeStrings(out, yamlFile.getComments(path));
+                writeStrings(out, yamlFile.getInlineComments(path));
+            }
+            YamlSaveQueue.writeAtomically(path(yamlFile), bytes.toByteArray());
+        } catch (IOException ex) {
+            Bukkit.getLogger().log(Level.WARNING, "Could not write snapshot of yaml file " + yamlFile.getFileName(), ex);
+        }
+    }
+
+    private static void delete(@NotNull YamlFile yamlFile) {
+        try {
+            Files.deleteIfExists(path(yamlFile));
+        } catch (IOException ex) {
+            Bukkit.getLogger().log(Level.WARNING, "Could not delete snapshot of yaml file " + yamlFile.getFileName(), ex);
+        }
+    }
+
+    private static @NotNull Path path(@NotNull YamlFile yamlFile) {
+        Path file = yamlFile.getFile().toPath();
+        return file.resolveSibling("." + file.getFileName() + ".snapshot");
+    }
+
+    /**
+     * Collects the full paths of all sections and values, every section before its children.
+     */
+    private static void collectPaths(@NotNull ConfigurationSection section, @NotNull String prefix, @NotNull List<String> paths) {
+        for (String key : section.getKeys(false)) {
+            String path = prefix + key;
+            paths.add(path);
+            if (section.get(key) instanceof ConfigurationSection child) collectPaths(child, path + ".", paths);
+        }
+    }
+
+    /**
+     * Writes a value with its type tag.
+     *
+     * @return false if the value, or an element of it, is of a type which cannot be cached
+     */
+    private static boolean writeValue(@NotNull DataOutputStream out, @Nullable Object value) throws IOException {
+        switch (value) {
+            case String string -> {
+                out.writeByte(STRING);
+                writeString(out, string);
+            }
+            case Integer integer -> {
+                out.writeByte(INTEGER);
+                out.writeInt(integer);
+            }
+            case Long number -> {
+                out.writeByte(LONG);
+                out.writeLong(number);
+            }
+            case Double number -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(number);
+            }
+            case Boolean bool -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(bool);
+            }
+            case BigInteger number -> {
+                out.writeByte(BIG_INTEGER);
+                writeString(out, number.toString());
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    if (!writeValue(out, element)) return false;
+                }
+            }
+            case Map<?, ?> map -> {
+                out.writeByte(MAP);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!writeValue(out, entry.getKey()) || !writeValue(out, entry.getValue())) return false;
+                }
+            }
+            case null, default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static @Nullable Object readValue(@NotNull ByteBuffer buffer, byte type) {
+        return switch (type) {
+            case STRING -> readString(buffer);
+            case INTEGER -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case DOUBLE -> buffer.getDouble();
+            case BOOLEAN -> buffer.get() != 0;
+            case BIG_INTEGER -> new BigInteger(readString(buffer));
+            case LIST -> {
+                int size = buffer.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) list.add(readValue(buffer, buffer.get()));
+                yield list;
+            }
+            case MAP -> {
+                int size = buffer.getInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) map.put(readValue(buffer, buffer.get()), readValue(buffer, buffer.get()));
+                yield map;
+            }
+            default -> throw new IllegalArgumentException("Unknown snapshot value type " + type);
+        };
+    }
+
+    private static void writeStrings(@NotNull DataOutputStream out, @NotNull List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) writeString(out, string);
+    }
+
+    private static @NotNull List<String> readStrings(@NotNull ByteBuffer buffer) {
+        int size = buffer.getInt();
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) strings.add(readString(buffer));
+        return strings;
+    }
+
+    /**
+     * Writes a string as its length in UTF-8 bytes followed by the bytes, or a length of -1 for null,
+     * which comments use for blank lines.
+     */
+    private static void writeString(@NotNull DataOutputStream out, @Nullable String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @Nullable String readString(@NotNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
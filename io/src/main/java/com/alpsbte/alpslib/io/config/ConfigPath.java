@@ -0,0 +1,24 @@
+package com.alpsbte.alpslib.io.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configures the path a record component or interface method of a {@link ConfigSnapshot} type is bound to.
+ * Without this annotation, the name is converted to kebab-case, e.g. {@code maxPoolSize} is bound to {@code max-pool-size}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.RECORD_COMPONENT, ElementType.METHOD})
+public @interface ConfigPath {
+    /**
+     * @return The path relative to the enclosing section, or empty to derive it from the name
+     */
+    String value() default "";
+
+    /**
+     * @return Whether the value may be missing, in which case it is bound to {@code null}, zero or {@code false}
+     */
+    boolean optional() default false;
+}
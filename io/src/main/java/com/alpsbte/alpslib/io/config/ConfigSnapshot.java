@@ -0,0 +1,295 @@
+package com.alpsbte.alpslib.io.config;
+
+import com.alpsbte.alpslib.io.YamlFile;
+import com.alpsbte.alpslib.io.YamlFileWatcher;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+/**
+ * Binds the values of a YAML file to an immutable, typed snapshot, so hot paths read bound values
+ * instead of resolving dotted paths through the sections of the file.
+ * <p>
+ * The snapshot type is a record, or an interface whose methods take no arguments. Every record component or method
+ * is bound to the value with its name in kebab-case, or to the path given by {@link ConfigPath}. Supported types are
+ * {@link String}, the primitive types and their wrappers, enums, lists of these, and nested records or interfaces,
+ * which are bound to a section. Default methods of interfaces are not bound and run their own implementation.
+ * Only record snapshots are plain field reads. Interface snapshots are proxies, which answer every call with
+ * a lookup of the {@link Method} in an identity map, so records are preferable for values read on every tick.
+ * All values are parsed and validated when the snapshot is bound; any missing or invalid value fails the whole binding.
+ * </p>
+ * <p>
+ * The current snapshot is published through an {@link AtomicReference}. {@link #refresh()} binds a new snapshot
+ * and swaps it in without locking readers, or keeps the previous one if the file is invalid.
+ * Registered on a {@link YamlFileWatcher}, the snapshot is refreshed whenever its file is reloaded.
+ * </p>
+ * <pre>{@code
+ * record DatabaseConfig(String url, @ConfigPath("dbname") String name, int maximumPoolSize) {}
+ * record PluginConfig(DatabaseConfig database, @ConfigPath(optional = true) List<String> disabledWorlds) {}
+ *
+ * ConfigSnapshot<PluginConfig> config = ConfigSnapshot.bind(configFile, PluginConfig.class);
+ * int poolSize = config.get().database().maximumPoolSize();
+ * }</pre>
+ *
+ * @param <T> The snapshot type
+ */
+public final class ConfigSnapshot<T> implements YamlFileWatcher.ReloadListener {
+    private final YamlFile file;
+    private final Class<T> type;
+    private final AtomicReference<T> snapshot = new AtomicReference<>();
+
+    private ConfigSnapshot(@NotNull YamlFile file, @NotNull Class<T> type) {
+        this.file = file;
+        this.type = type;
+    }
+
+    /**
+     * Binds the values of the given file to a new snapshot.
+     *
+     * @param file The loaded file
+     * @param type A record or interface
+     * @param <T>  The snapshot type
+     * @return The bound snapshot
+     * @throws IllegalArgumentException If a value is missing or invalid, listing all such values
+     */
+    public static <T> @NotNull ConfigSnapshot<T> bind(@NotNull YamlFile file, @NotNull Class<T> type) {
+        ConfigSnapshot<T> snapshot = new ConfigSnapshot<>(file, type);
+        snapshot.refresh();
+        return snapshot;
+    }
+
+    /**
+     * @return The current snapshot
+     */
+    public @NotNull T get() {
+        return snapshot.get();
+    }
+
+    /**
+     * Binds the current values of the file to a new snapshot and publishes it.
+     * If a value is missing or invalid, the previous snapshot stays in place.
+     *
+     * @return The new snapshot
+     * @throws IllegalArgumentException If a value is missing or invalid, listing all such values
+     */
+    public @NotNull T refresh() {
+        List<String> errors = new ArrayList<>();
+        Object bound = bind(type, "", errors);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid values in " + file.getFileName() + ": " + String.join("; ", errors));
+        }
+        T value = type.cast(bound);
+        snapshot.set(value);
+        return value;
+    }
+
+    @Override
+    public void onReload(@NotNull YamlFile yamlFile, @NotNull Set<String> changedKeys) {
+        if (yamlFile != file) return;
+        try {
+            refresh();
+        } catch (IllegalArgumentException ex) {
+            Bukkit.getLogger().log(Level.SEVERE, "Could not refresh config snapshot, keeping the previous values", ex);
+        }
+    }
+
+    private @Nullable Object bind(@NotNull Class<?> type, @NotNull String section, @NotNull List<String> errors) {
+        if (type.isRecord()) {
+            RecordComponent[] components = type.getRecordComponents();
+            Object[] values = new Object[components.length];
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+                values[i] = value(components[i].getGenericType(), section, components[i].getName(), components[i].getAnnotation(ConfigPath.class), errors);
+            }
+            if (!errors.isEmpty()) return null;
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor(types);
+                constructor.setAccessible(true);
+                return constructor.newInstance(values);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalArgumentException("Could not create " + type.getName() + ".", ex);
+            }
+        }
+
+        if (type.isInterface()) {
+            Map<Method, Object> values = new LinkedHashMap<>();
+            for (Method method : type.getMethods()) {
+                if (!Modifier.isAbstract(method.getModifiers())) continue;
+                if (method.getParameterCount() > 0 || method.getReturnType() == void.class) {
+                    throw new IllegalArgumentException(type.getName() + "." + method.getName() + " must take no arguments and return a value.");
+                }
+                values.put(method, value(method.getGenericReturnType(), section, method.getName(), method.getAnnotation(ConfigPath.class), errors));
+            }
+            if (!errors.isEmpty()) return null;
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new SnapshotHandler(type, values));
+            try {
+                // The proxy passes its own Method instances, which are recorded by calling every bound method once
+                for (Method method : values.keySet()) {
+                    method.trySetAccessible();
+                    method.invoke(proxy);
+                }
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalArgumentException("Could not create " + type.getName() + ".", ex);
+            }
+            return proxy;
+        }
+
+        throw new IllegalArgumentException(type.getName() + " must be a record or an interface.");
+    }
+
+    private @Nullable Object value(@NotNull Type type, @NotNull String section, @NotNull String name, @Nullable ConfigPath annotation,
+                                   @NotNull List<String> errors) {
+        String key = annotation != null && !annotation.value().isEmpty() ? annotation.value() : toKebabCase(name);
+        String path = section.isEmpty() ? key : section + "." + key;
+        Object raw = file.get(path);
+        Class<?> rawType = type instanceof ParameterizedType parameterized ? (Class<?>) parameterized.getRawType() : (Class<?>) type;
+
+        if (Map.class.isAssignableFrom(rawType) || Collection.class.isAssignableFrom(rawType) && rawType != List.class) {
+            errors.add(path + " has the unsupported type " + type.getTypeName());
+            return null;
+        }
+        if (raw == null) {
+            if (annotation == null || !annotation.optional()) errors.add(path + " is missing");
+            return rawType.isPrimitive() ? Array.get(Array.newInstance(rawType, 1), 0) : null;
+        }
+        if (rawType.isRecord() || rawType.isInterface() && rawType != List.class) {
+            if (raw instanceof ConfigurationSection) return bind(rawType, path, errors);
+            errors.add(path + " must be a section");
+            return null;
+        }
+        if (rawType == List.class) {
+            if (!(raw instanceof List<?> list) || !(type instanceof ParameterizedType parameterized)) {
+                errors.add(path + " must be a list");
+                return null;
+            }
+            if (!(parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType)) {
+                errors.add(path + " has the unsupported element type " + parameterized.getActualTypeArguments()[0].getTypeName());
+                return null;
+            }
+            List<Object> elements = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) elements.add(convert(list.get(i), elementType, path + "[" + i + "]", errors));
+            return List.copyOf(elements);
+        }
+        return convert(raw, rawType, path, errors);
+    }
+
+    private static @Nullable Object convert(@Nullable Object raw, @NotNull Class<?> type, @NotNull String path, @NotNull List<String> errors) {
+        if (raw == null || raw instanceof ConfigurationSection || raw instanceof List) {
+            errors.add(path + " must be a single value");
+            return null;
+        }
+        if (type == String.class) return raw.toString();
+        if (type == boolean.class || type == Boolean.class) {
+            if (raw instanceof Boolean) return raw;
+            errors.add(path + " must be true or false");
+            return false;
+        }
+        if (type.isEnum()) {
+            String constant = raw.toString().toUpperCase(Locale.ROOT).replace('-', '_');
+            for (Object value : type.getEnumConstants()) {
+                if (((Enum<?>) value).name().equals(constant)) return value;
+            }
+            errors.add(path + " must be one of " + List.of(type.getEnumConstants()).toString().toLowerCase(Locale.ROOT).replace('_', '-'));
+            return null;
+        }
+        if (!type.isPrimitive() && !Number.class.isAssignableFrom(type)) {
+            errors.add(path + " has the unsupported type " + type.getName());
+            return null;
+        }
+        if (!(raw instanceof Number number)) {
+            errors.add(path + " must be a number");
+            return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+        if (type == int.class || type == Integer.class) {
+            if (number.longValue() == number.intValue() && number.doubleValue() == number.longValue()) return number.intValue();
+            errors.add(path + " must be an integer");
+            return 0;
+        }
+        if (type == long.class || type == Long.class) {
+            if (number.doubleValue() == number.longValue()) return number.longValue();
+            errors.add(path + " must be an integer");
+            return 0L;
+        }
+        if (type == double.class || type == Double.class) return number.doubleValue();
+        if (type == float.class || type == Float.class) return number.floatValue();
+        errors.add(path + " has the unsupported type " + type.getName());
+        return null;
+    }
+
+    private static @NotNull String toKebabCase(@NotNull String name) {
+        StringBuilder key = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) key.append('-');
+                key.append(Character.toLowerCase(c));
+            } else {
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Answers the methods of an interface snapshot from values resolved once per {@link Method} of the proxy class.
+     */
+    private static final class SnapshotHandler implements InvocationHandler {
+        private final Class<?> type;
+        private final Map<Method, Object> bound;
+        private final Map<Method, Object> values = new IdentityHashMap<>();
+
+        private SnapshotHandler(@NotNull Class<?> type, @NotNull Map<Method, Object> bound) {
+            this.type = type;
+            this.bound = bound;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object value = values.get(method);
+            if (value != null || values.containsKey(method)) return value;
+            if (method.isDefault()) return InvocationHandler.invokeDefault(proxy, method, args);
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> toString();
+                };
+            }
+
+            // Only reached while the snapshot is bound, before it is published to other threads
+            value = bound.get(method);
+            values.put(method, value);
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", type.getSimpleName() + "{", "}");
+            bound.forEach((method, value) -> joiner.add(method.getName() + "=" + value));
+            return joiner.toString();
+        }
+    }
+}
@@ -17,17 +17,20 @@ public class ConfigurationUtil extends YamlFileFactory {
         for (ConfigFile file : configs) {
             if (!file.getFile().exists() && createFile(file) && file.isMustBeConfigured()) {
                 throw new ConfigNotImplementedException("The config file must be configured!");
-            } else if (reloadFile(file) && file.getDouble(CONFIG_VERSION_PATH) != file.getVersion()) {
-                updateConfigFile(file);
             }
         }
 
-        reloadFiles();
+        for (ConfigFile file : loadFiles(configs, this::loadFile)) {
+            if (file.getDouble(CONFIG_VERSION_PATH) == file.getVersion()) continue;
+            updateConfigFile(file);
+            reloadFile(file);
+        }
     }
 
     /**
      * Updates the config file to the latest version.
-     * This method is used to override.
+     * This method is used to override. It is called on the constructing thread
+     * after all config files have been loaded.
      * @param file The config file to update.
      */
     public void updateConfigFile(ConfigFile file) {
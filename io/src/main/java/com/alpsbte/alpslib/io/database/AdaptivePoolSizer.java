@@ -0,0 +1,94 @@
+package com.alpsbte.alpslib.io.database;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grows and shrinks the primary connection pool between a floor and a ceiling based on observed load.
+ * <p>
+ * Every interval, the number of active, idle and waiting connections is sampled together with the
+ * 95th percentile of the time spent waiting for a connection since the last sample. The pool grows
+ * as soon as callers wait longer than the target wait time or queue up for a connection, and shrinks
+ * by half of its idle connections after several consecutive samples without waiting callers.
+ * Every resize is logged and recorded in the {@link QueryMetrics} of the pool.
+ * </p>
+ */
+final class AdaptivePoolSizer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+    /** Number of consecutive idle samples required before the pool shrinks, avoiding oscillation. */
+    private static final int SHRINK_AFTER_SAMPLES = 3;
+
+    private final String poolName;
+    private final HikariDataSource dataSource;
+    private final QueryMetrics metrics;
+    private final int floor;
+    private final int ceiling;
+    private final long targetWaitNanos;
+    private final ScheduledExecutorService scheduler;
+    private LatencyHistogram.Snapshot lastWait;
+    private int idleSamples;
+
+    AdaptivePoolSizer(@NotNull String poolName, @NotNull HikariDataSource dataSource, @NotNull QueryMetrics metrics, @NotNull DatabaseSection config) {
+        this.poolName = poolName;
+        this.dataSource = dataSource;
+        this.metrics = metrics;
+        this.floor = Math.max(1, config.getAdaptiveMinimumPoolSize());
+        this.ceiling = Math.max(floor, config.getAdaptiveMaximumPoolSize());
+        this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getAdaptiveTargetWait());
+        this.lastWait = metrics.checkoutWaitSnapshot();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("alpslib-pool-sizer").daemon().factory());
+        this.scheduler.scheduleWithFixedDelay(this::sampleQuietly, config.getAdaptiveSizingInterval(), config.getAdaptiveSizingInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not resize database pool {}.", poolName, e);
+        }
+    }
+
+    private void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        if (pool == null || config == null) return;
+
+        LatencyHistogram.Snapshot wait = metrics.checkoutWaitSnapshot();
+        long p95WaitNanos = wait.since(lastWait).getPercentile(0.95).toNanos();
+        lastWait = wait;
+
+        int active = pool.getActiveConnections();
+        int idle = pool.getIdleConnections();
+        int waiting = pool.getThreadsAwaitingConnection();
+        int current = config.getMaximumPoolSize();
+
+        int target = current;
+        if (waiting > 0 || p95WaitNanos > targetWaitNanos) {
+            idleSamples = 0;
+            target = Math.min(ceiling, current + Math.max(1, waiting));
+        } else if (idle > 0 && ++idleSamples >= SHRINK_AFTER_SAMPLES) {
+            idleSamples = 0;
+            target = Math.max(floor, Math.max(active, current - Math.max(1, idle / 2)));
+        }
+        target = Math.clamp(target, floor, ceiling);
+        if (target == current) return;
+
+        if (config.getMinimumIdle() > target) config.setMinimumIdle(target);
+        config.setMaximumPoolSize(target);
+        metrics.recordResize(target);
+        LOGGER.info("Resized database pool {} from {} to {} connections (active={}, idle={}, waiting={}, p95 wait={} ms).",
+                poolName, current, target, active, idle, waiting, TimeUnit.NANOSECONDS.toMillis(p95WaitNanos));
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,170 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous counterpart of {@link SqlHelper}.
+ * <p>
+ * Every method runs the matching {@link SqlHelper} call on the database executor and returns a
+ * {@link CompletableFuture}. A failing {@link SQLException} completes the future exceptionally.
+ * By default, futures complete on the database thread; use {@link #onMainThread(Plugin)} to
+ * complete them on the Bukkit main thread instead.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class AsyncSqlHelper {
+    static final AsyncSqlHelper DEFAULT = new AsyncSqlHelper(DatabaseConnection.DEFAULT_POOL, null, null);
+
+    private final String poolName;
+    private final String category;
+    private final Executor completionExecutor;
+
+    private AsyncSqlHelper(@NotNull String poolName, @Nullable String category, @Nullable Executor completionExecutor) {
+        this.poolName = poolName;
+        this.category = category;
+        this.completionExecutor = completionExecutor;
+    }
+
+    /**
+     * Returns a variant of this helper targeting the named pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @return An {@link AsyncSqlHelper} running on the executor of the named pool
+     */
+    public @NotNull AsyncSqlHelper onPool(@NotNull String poolName) {
+        return new AsyncSqlHelper(poolName, category, completionExecutor);
+    }
+
+    /**
+     * Returns a variant of this helper counting its connections against the given caller category.
+     *
+     * @param category The caller category
+     * @return An {@link AsyncSqlHelper} running its tasks in the given category
+     * @see SqlHelper#withCategory(String, SqlHelper.SQLCheckedSupplier)
+     */
+    public @NotNull AsyncSqlHelper inCategory(@NotNull String category) {
+        return new AsyncSqlHelper(poolName, category, completionExecutor);
+    }
+
+    /**
+     * Returns a variant of this helper whose futures complete on the Bukkit main thread.
+     * If the plugin is disabled, the futures complete on the database thread.
+     *
+     * @param plugin The plugin used to schedule the completion
+     * @return An {@link AsyncSqlHelper} completing on the main thread
+     */
+    public @NotNull AsyncSqlHelper onMainThread(@NotNull Plugin plugin) {
+        return new AsyncSqlHelper(poolName, category, task -> {
+            if (Bukkit.isPrimaryThread() || !plugin.isEnabled()) task.run();
+            else Bukkit.getScheduler().runTask(plugin, task);
+        });
+    }
+
+    /**
+     * @see SqlHelper#runQuery(String, SqlHelper.SQLFunction)
+     */
+    public <T> @NotNull CompletableFuture<T> runQuery(String query, @NotNull SqlHelper.SQLFunction<T> action) {
+        return supply(() -> SqlHelper.runQuery(poolName, query, action));
+    }
+
+    /**
+     * @see SqlHelper#runQuery(String, SqlHelper.SQLConsumer)
+     */
+    public @NotNull CompletableFuture<Void> runQuery(String query, @NotNull SqlHelper.SQLConsumer action) {
+        return run(() -> SqlHelper.runQuery(poolName, query, action));
+    }
+
+    /**
+     * @see SqlHelper#runReadQuery(String, SqlHelper.SQLFunction)
+     */
+    public <T> @NotNull CompletableFuture<T> runReadQuery(String query, @NotNull SqlHelper.SQLFunction<T> action) {
+        return supply(() -> SqlHelper.runReadQuery(poolName, query, action));
+    }
+
+    /**
+     * @see SqlHelper#runCachedQuery(String, List, SqlHelper.SQLFunction, String...)
+     */
+    public <T> @NotNull CompletableFuture<T> runCachedQuery(String query, @NotNull List<?> params, @NotNull SqlHelper.SQLFunction<T> action, String... tables) {
+        return supply(() -> SqlHelper.runCachedQuery(poolName, query, params, action, tables));
+    }
+
+    /**
+     * @see SqlHelper#runInsertQuery(String, SqlHelper.SQLFunction)
+     */
+    public <T> @NotNull CompletableFuture<T> runInsertQuery(String query, @NotNull SqlHelper.SQLFunction<T> action) {
+        return supply(() -> SqlHelper.runInsertQuery(poolName, query, action));
+    }
+
+    /**
+     * @see SqlHelper#runStatement(String, SqlHelper.SQLConsumer)
+     */
+    public @NotNull CompletableFuture<Void> runStatement(String sql, @NotNull SqlHelper.SQLConsumer action) {
+        return run(() -> SqlHelper.runStatement(poolName, sql, action));
+    }
+
+    /**
+     * @see SqlHelper#runBatch(String, Iterable, SqlHelper.SQLBinder, int)
+     */
+    public <T> @NotNull CompletableFuture<int[]> runBatch(String sql, @NotNull Iterable<T> items, @NotNull SqlHelper.SQLBinder<T> binder, int batchSize) {
+        return supply(() -> SqlHelper.runBatch(poolName, sql, items, binder, batchSize));
+    }
+
+    /**
+     * @see SqlHelper#runBatchInsertQuery(String, Iterable, SqlHelper.SQLBinder, int)
+     */
+    public <T> @NotNull CompletableFuture<List<Long>> runBatchInsertQuery(String sql, @NotNull Iterable<T> items, @NotNull SqlHelper.SQLBinder<T> binder, int batchSize) {
+        return supply(() -> SqlHelper.runBatchInsertQuery(poolName, sql, items, binder, batchSize));
+    }
+
+    /**
+     * @see SqlHelper#inTransaction(SqlHelper.SQLTransactionFunction)
+     */
+    public <T> @NotNull CompletableFuture<T> inTransaction(@NotNull SqlHelper.SQLTransactionFunction<T> body) {
+        return supply(() -> SqlHelper.inTransaction(poolName, body));
+    }
+
+    /**
+     * @see SqlHelper#inTransaction(TransactionOptions, SqlHelper.SQLTransactionFunction)
+     */
+    public <T> @NotNull CompletableFuture<T> inTransaction(@NotNull TransactionOptions options, @NotNull SqlHelper.SQLTransactionFunction<T> body) {
+        return supply(() -> SqlHelper.inTransaction(poolName, options, body));
+    }
+
+    /**
+     * Runs any database operation on the executor of the pool of this helper.
+     *
+     * @param task The operation to run
+     * @param <T>  The type of result to return
+     * @return A future completed with the result of the {@code task}
+     */
+    public <T> @NotNull CompletableFuture<T> supply(@NotNull SqlHelper.SQLCheckedSupplier<T> task) {
+        DatabasePool pool = DatabaseConnection.getPool(poolName);
+        if (pool == null) {
+            return CompletableFuture.failedFuture(new SQLException("Unable to run an asynchronous query. (pool '" + poolName + "' is not registered)"));
+        }
+
+        CompletableFuture<T> future = pool.getExecutor().submit(() -> category == null ? task.get() : DatabaseConnection.withCategory(category, task));
+        return completionExecutor == null ? future : future.whenCompleteAsync((r, t) -> {}, completionExecutor);
+    }
+
+    /**
+     * Runs any database operation without a result on the executor of the pool of this helper.
+     *
+     * @param task The operation to run
+     * @return A future completed once the {@code task} has finished
+     */
+    public @NotNull CompletableFuture<Void> run(@NotNull SqlHelper.SQLRunnable task) {
+        return supply(() -> {
+            task.get();
+            return null;
+        });
+    }
+}
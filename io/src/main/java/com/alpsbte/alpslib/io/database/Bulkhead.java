@@ -0,0 +1,111 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of connections a caller category may hold at the same time.
+ * <p>
+ * Every category has its own set of permits and its own bounded wait queue, so a slow category
+ * cannot occupy the whole pool. On top of that, all categories share a pool-wide set of permits
+ * sized to the connections the pool can hand out, so unconfigured categories cannot together exceed it.
+ * A caller finding a queue full, or waiting longer than the maximum wait time, is rejected with a
+ * {@link DatabaseRejectedException} instead of blocking inside the connection pool.
+ * </p>
+ */
+final class Bulkhead {
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final Map<String, Integer> categoryLimits;
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+    private final Compartment total;
+
+    Bulkhead(int maxConcurrent, int maxTotal, int maxQueued, long maxWaitMillis, @NotNull Map<String, Integer> categoryLimits) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.categoryLimits = categoryLimits;
+        this.total = new Compartment(Math.max(1, maxTotal));
+    }
+
+    /**
+     * Takes a permit of the given category and a pool-wide permit, waiting in their queues if all permits are taken.
+     *
+     * @param category The caller category
+     * @throws DatabaseRejectedException If a queue is full or no permit became available in time
+     */
+    void acquire(@NotNull String category) throws SQLException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        Compartment compartment = compartment(category);
+        acquire(compartment, deadline, "category '" + category + "'");
+        try {
+            acquire(total, deadline, "the pool");
+        } catch (SQLException e) {
+            compartment.permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire(@NotNull Compartment compartment, long deadline, @NotNull String name) throws SQLException {
+        try {
+            if (compartment.permits.tryAcquire(0, TimeUnit.NANOSECONDS)) return;
+
+            if (compartment.queued.incrementAndGet() > maxQueued) {
+                compartment.queued.decrementAndGet();
+                throw new DatabaseRejectedException(DatabaseRejectedException.Reason.QUEUE_FULL,
+                        "Unable to get a connection from the pool. (wait queue of " + name + " is full)");
+            }
+            try {
+                if (!compartment.permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new DatabaseRejectedException(DatabaseRejectedException.Reason.TIMEOUT,
+                            "Unable to get a connection from the pool. (no permit of " + name + " available in time)");
+                }
+            } finally {
+                compartment.queued.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+    }
+
+    /**
+     * Returns a permit of the given category and its pool-wide permit.
+     */
+    void release(@NotNull String category) {
+        total.permits.release();
+        compartment(category).permits.release();
+    }
+
+    /**
+     * Wraps the given connection so that closing it returns the permit of the given category.
+     *
+     * @param con      The connection holding a permit
+     * @param category The caller category of the permit
+     * @return A connection releasing its permit when closed
+     */
+    @NotNull Connection guard(@NotNull Connection con, @NotNull String category) {
+        return CloseHookConnection.wrap(con, () -> release(category));
+    }
+
+    private @NotNull Compartment compartment(String category) {
+        return compartments.computeIfAbsent(category, c -> new Compartment(categoryLimits.getOrDefault(c, maxConcurrent)));
+    }
+
+    private static final class Compartment {
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        Compartment(int limit) {
+            this.permits = new Semaphore(limit, true);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops handing out connections of a pool after consecutive failures to obtain one.
+ * <p>
+ * After the configured number of consecutive checkout failures, the breaker opens and rejects
+ * all requests with a {@link DatabaseRejectedException} until the open duration has passed.
+ * Then a single probe request is let through: if it succeeds, the breaker closes again,
+ * otherwise it stays open for another open duration.
+ * </p>
+ */
+final class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String poolName;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long openedAt;
+
+    CircuitBreaker(@NotNull String poolName, int failureThreshold, long openDurationMillis) {
+        this.poolName = poolName;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+    }
+
+    /**
+     * Checks whether a connection may be requested from the pool.
+     *
+     * @throws DatabaseRejectedException If the breaker is open, or half-open with a probe in flight
+     */
+    void beforeCheckout() throws DatabaseRejectedException {
+        State current = state.get();
+        if (current == State.CLOSED) return;
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            return; // This request is the probe
+        }
+        throw new DatabaseRejectedException(DatabaseRejectedException.Reason.CIRCUIT_OPEN,
+                "Unable to get a connection from the pool. (circuit breaker of pool '" + poolName + "' is open)");
+    }
+
+    void onSuccess() {
+        failures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) LOGGER.info("Circuit breaker of database pool {} closed.", poolName);
+    }
+
+    void onFailure() {
+        if (state.get() == State.HALF_OPEN || failures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (state.getAndSet(State.OPEN) == State.CLOSED) {
+                LOGGER.warn("Circuit breaker of database pool {} opened after {} consecutive failures.", poolName, failures.get());
+            }
+        }
+    }
+
+    /**
+     * @return Whether a request would currently be let through, either because the breaker is closed
+     * or as the probe after the open duration has passed
+     */
+    boolean isAvailable() {
+        State current = state.get();
+        return current == State.CLOSED || current == State.OPEN && System.nanoTime() - openedAt >= openNanos;
+    }
+
+    /**
+     * @return Whether requests are currently rejected
+     */
+    boolean isOpen() {
+        return state.get() != State.CLOSED;
+    }
+}
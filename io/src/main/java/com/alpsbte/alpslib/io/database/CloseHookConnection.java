@@ -0,0 +1,65 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a hook once a pooled {@link Connection} is closed, e.g. to return a bulkhead permit
+ * or to measure how long the connection was held.
+ */
+final class CloseHookConnection implements InvocationHandler {
+    private final Connection delegate;
+    private final Runnable onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private CloseHookConnection(Connection delegate, Runnable onClose) {
+        this.delegate = delegate;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Wraps the given connection so that the hook runs after it is closed.
+     * The hook runs at most once, even if the connection is closed several times.
+     *
+     * @param con     The connection to wrap
+     * @param onClose The hook to run
+     * @return A connection running the hook when closed
+     */
+    static @NotNull Connection wrap(@NotNull Connection con, @NotNull Runnable onClose) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new CloseHookConnection(con, onClose));
+    }
+
+    @Override
+    public Object invoke(Object proxy, @NotNull Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "close" -> {
+                try {
+                    delegate.close();
+                } finally {
+                    if (closed.compareAndSet(false, true)) onClose.run();
+                }
+                return null;
+            }
+            default -> {
+                try {
+                    return method.invoke(delegate, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.alpsbte.alpslib.io.database;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 public class DatabaseConfigPaths {
     private DatabaseConfigPaths() {throw new IllegalStateException("Utility class");}
 
@@ -18,20 +25,120 @@ public class DatabaseConfigPaths {
     public static final String DATABASE_MAXIMUM_POOL_SIZE = DATABASE + "maximum-pool-size";
     public static final String DATABASE_LEAK_DETECTION_THRESHOLD = DATABASE + "leak-detection-threshold";
     public static final String DATABASE_POOL_NAME = DATABASE + "pool-name";
+    public static final String DATABASE_USE_BULK_STATEMENTS = DATABASE + "use-bulk-statements";
+    public static final String DATABASE_USE_BULK_STATEMENTS_FOR_INSERTS = DATABASE + "use-bulk-statements-for-inserts";
+    public static final String DATABASE_STREAM_FETCH_SIZE = DATABASE + "stream-fetch-size";
+    public static final String DATABASE_SLOW_QUERY_THRESHOLD = DATABASE + "slow-query-threshold";
+    public static final String DATABASE_REPLICA_SELECTION = DATABASE + "replica-selection";
+    public static final String DATABASE_REPLICAS = DATABASE + "replicas";
+    public static final String DATABASE_QUERY_CACHE_TTL = DATABASE + "query-cache-ttl";
+    public static final String DATABASE_QUERY_CACHE_MAX_WEIGHT = DATABASE + "query-cache-max-weight";
+    public static final String DATABASE_BULKHEAD_MAX_CONCURRENT = DATABASE + "bulkhead-max-concurrent";
+    public static final String DATABASE_BULKHEAD_MAX_QUEUED = DATABASE + "bulkhead-max-queued";
+    public static final String DATABASE_BULKHEAD_MAX_WAIT = DATABASE + "bulkhead-max-wait";
+    public static final String DATABASE_BULKHEAD_CATEGORIES = DATABASE + "bulkhead-categories";
+    public static final String DATABASE_CIRCUIT_BREAKER_FAILURE_THRESHOLD = DATABASE + "circuit-breaker-failure-threshold";
+    public static final String DATABASE_CIRCUIT_BREAKER_OPEN_DURATION = DATABASE + "circuit-breaker-open-duration";
+    public static final String DATABASE_MINIMUM_IDLE = DATABASE + "minimum-idle";
+    public static final String DATABASE_WARM_UP = DATABASE + "warm-up";
+    public static final String DATABASE_WARM_UP_STATEMENTS = DATABASE + "warm-up-statements";
+    public static final String DATABASE_ADAPTIVE_MINIMUM_POOL_SIZE = DATABASE + "adaptive-minimum-pool-size";
+    public static final String DATABASE_ADAPTIVE_MAXIMUM_POOL_SIZE = DATABASE + "adaptive-maximum-pool-size";
+    public static final String DATABASE_ADAPTIVE_SIZING_INTERVAL = DATABASE + "adaptive-sizing-interval";
+    public static final String DATABASE_ADAPTIVE_TARGET_WAIT = DATABASE + "adaptive-target-wait";
+    public static final String DATABASE_MAIN_THREAD_POLICY = DATABASE + "main-thread-policy";
+    public static final String DATABASE_DRAIN_TIMEOUT = DATABASE + "drain-timeout";
+    public static final String DATABASE_DRIVER_CLASS_NAME = DATABASE + "driver-class-name";
+    public static final String DATABASE_URL_PARAMETERS = DATABASE + "url-parameters";
+    public static final String DATABASE_ASYNC_MAX_QUEUED = DATABASE + "async-max-queued";
+
+    // Keys of a single replica, relative to its section below DATABASE_REPLICAS
+    public static final String REPLICA_URL = "url";
+    public static final String REPLICA_NAME = "dbname";
+    public static final String REPLICA_USERNAME = "username";
+    public static final String REPLICA_PASSWORD = "password";
+    public static final String REPLICA_MAXIMUM_POOL_SIZE = "maximum-pool-size";
 
     @Contract("_ -> new")
     public static @NotNull DatabaseSection getConfig(@NotNull FileConfiguration config) {
-        return new DatabaseSection(
-                config.getString(DATABASE_URL),
-                config.getString(DATABASE_NAME),
-                config.getString(DATABASE_USERNAME),
-                config.getString(DATABASE_PASSWORD),
-                config.getLong(DATABASE_MAX_LIFETIME, 1800000L), // Default: 30 minutes
-                config.getLong(DATABASE_CONNECTION_TIMEOUT, 30000L), // Default: 30 seconds
-                config.getLong(DATABASE_KEEPALIVE_TIME, 120000L), // Default: 2 minutes
-                config.getInt(DATABASE_MAXIMUM_POOL_SIZE, 10), // Default: 10 connections
-                config.getLong(DATABASE_LEAK_DETECTION_THRESHOLD, 0L), // Default: no leak detection
-                config.getString(DATABASE_POOL_NAME, "plotsystem-hikari")
-        );
+        return DatabaseSection.builder()
+                .url(config.getString(DATABASE_URL))
+                .dbName(config.getString(DATABASE_NAME))
+                .username(config.getString(DATABASE_USERNAME))
+                .password(config.getString(DATABASE_PASSWORD))
+                .maxLifetime(config.getLong(DATABASE_MAX_LIFETIME, 1800000L)) // Default: 30 minutes
+                .connectionTimeout(config.getLong(DATABASE_CONNECTION_TIMEOUT, 30000L)) // Default: 30 seconds
+                .keepaliveTime(config.getLong(DATABASE_KEEPALIVE_TIME, 120000L)) // Default: 2 minutes
+                .maximumPoolSize(config.getInt(DATABASE_MAXIMUM_POOL_SIZE, 10)) // Default: 10 connections
+                .leakDetectionThreshold(config.getLong(DATABASE_LEAK_DETECTION_THRESHOLD, 0L)) // Default: no leak detection
+                .poolName(config.getString(DATABASE_POOL_NAME, "plotsystem-hikari"))
+                .useBulkStatements(config.getBoolean(DATABASE_USE_BULK_STATEMENTS, false)) // Default: driver default
+                .useBulkStatementsForInserts(config.getBoolean(DATABASE_USE_BULK_STATEMENTS_FOR_INSERTS, true)) // Default: driver default
+                .streamFetchSize(config.getInt(DATABASE_STREAM_FETCH_SIZE, DatabaseSection.DEFAULT_STREAM_FETCH_SIZE)) // Default: 1000 rows
+                .slowQueryThreshold(config.getLong(DATABASE_SLOW_QUERY_THRESHOLD, 0L)) // Default: no slow-query log
+                .replicaSelection(ReplicaSelection.valueOf(config.getString(DATABASE_REPLICA_SELECTION, ReplicaSelection.ROUND_ROBIN.name())
+                        .toUpperCase(Locale.ROOT).replace('-', '_'))) // Default: round-robin
+                .queryCacheTtl(config.getLong(DATABASE_QUERY_CACHE_TTL, 60000L)) // Default: 1 minute
+                .queryCacheMaxWeight(config.getLong(DATABASE_QUERY_CACHE_MAX_WEIGHT, 0L)) // Default: no query cache
+                .bulkheadMaxConcurrent(config.getInt(DATABASE_BULKHEAD_MAX_CONCURRENT, 0)) // Default: no bulkhead
+                .bulkheadMaxQueued(config.getInt(DATABASE_BULKHEAD_MAX_QUEUED, 100)) // Default: 100 waiting callers
+                .bulkheadMaxWait(config.getLong(DATABASE_BULKHEAD_MAX_WAIT, 5000L)) // Default: 5 seconds
+                .bulkheadCategoryLimits(getCategoryLimits(config))
+                .circuitBreakerFailureThreshold(config.getInt(DATABASE_CIRCUIT_BREAKER_FAILURE_THRESHOLD, 0)) // Default: no circuit breaker
+                .circuitBreakerOpenDuration(config.getLong(DATABASE_CIRCUIT_BREAKER_OPEN_DURATION, 30000L)) // Default: 30 seconds
+                .minimumIdle(config.getInt(DATABASE_MINIMUM_IDLE, -1)) // Default: maximum pool size
+                .warmUp(config.getBoolean(DATABASE_WARM_UP, false)) // Default: no warm-up
+                .warmUpStatements(List.copyOf(config.getStringList(DATABASE_WARM_UP_STATEMENTS)))
+                .adaptiveMinimumPoolSize(config.getInt(DATABASE_ADAPTIVE_MINIMUM_POOL_SIZE, 2)) // Default: 2 connections
+                .adaptiveMaximumPoolSize(config.getInt(DATABASE_ADAPTIVE_MAXIMUM_POOL_SIZE, 0)) // Default: no adaptive sizing
+                .adaptiveSizingInterval(config.getLong(DATABASE_ADAPTIVE_SIZING_INTERVAL, 10000L)) // Default: 10 seconds
+                .adaptiveTargetWait(config.getLong(DATABASE_ADAPTIVE_TARGET_WAIT, 5L)) // Default: 5 milliseconds
+                .mainThreadPolicy(MainThreadPolicy.valueOf(config.getString(DATABASE_MAIN_THREAD_POLICY, MainThreadPolicy.OFF.name())
+                        .toUpperCase(Locale.ROOT))) // Default: no main-thread check
+                .drainTimeout(config.getLong(DATABASE_DRAIN_TIMEOUT, 30000L)) // Default: 30 seconds
+                .driverClassName(config.getString(DATABASE_DRIVER_CLASS_NAME, "org.mariadb.jdbc.Driver")) // Default: MariaDB driver
+                .urlParameters(config.getString(DATABASE_URL_PARAMETERS, "?allowMultiQueries=true"))
+                .asyncMaxQueued(config.getInt(DATABASE_ASYNC_MAX_QUEUED, 10000)) // Default: 10000 waiting tasks
+                .build();
+    }
+
+    /**
+     * Reads the concurrency limits of the caller categories configured below {@link #DATABASE_BULKHEAD_CATEGORIES}.
+     */
+    private static @NotNull Map<String, Integer> getCategoryLimits(@NotNull FileConfiguration config) {
+        ConfigurationSection categories = config.getConfigurationSection(DATABASE_BULKHEAD_CATEGORIES);
+        if (categories == null) return Map.of();
+
+        Map<String, Integer> limits = new HashMap<>();
+        for (String category : categories.getKeys(false)) limits.put(category, categories.getInt(category));
+        return Map.copyOf(limits);
+    }
+
+    /**
+     * Reads the read replicas configured below {@link #DATABASE_REPLICAS}.
+     * Every key not set for a replica is inherited from the primary database configuration.
+     *
+     * @param config The configuration file
+     * @return The replica configurations, or an empty list if no replicas are configured
+     */
+    public static @NotNull List<DatabaseSection> getReplicaConfigs(@NotNull FileConfiguration config) {
+        ConfigurationSection replicasSection = config.getConfigurationSection(DATABASE_REPLICAS);
+        if (replicasSection == null) return List.of();
+
+        DatabaseSection primary = getConfig(config);
+        List<DatabaseSection> replicas = new ArrayList<>();
+        for (String key : replicasSection.getKeys(false)) {
+            ConfigurationSection replica = replicasSection.getConfigurationSection(key);
+            if (replica == null) continue;
+            replicas.add(primary.toBuilder()
+                    .url(replica.getString(REPLICA_URL, primary.getUrl()))
+                    .dbName(replica.getString(REPLICA_NAME, primary.getDbName()))
+                    .username(replica.getString(REPLICA_USERNAME, primary.getUsername()))
+                    .password(replica.getString(REPLICA_PASSWORD, primary.getPassword()))
+                    .maximumPoolSize(replica.getInt(REPLICA_MAXIMUM_POOL_SIZE, primary.getMaximumPoolSize()))
+                    .poolName(primary.getPoolName() + "-replica-" + key)
+                    .build());
+        }
+        return replicas;
     }
 }
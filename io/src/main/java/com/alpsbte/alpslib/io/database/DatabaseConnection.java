@@ -1,85 +1,312 @@
 package com.alpsbte.alpslib.io.database;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
- * Provides centralized management for the database connection.
+ * Provides centralized management for the database connections.
  * <p>
- * This class initializes and manages a HikariCP connection pool
- * and offers methods to obtain and close database connections.
+ * This class keeps a registry of named {@link DatabasePool}s, each backed by its own HikariCP
+ * connection pool, and offers methods to obtain and close database connections.
+ * The static methods without a pool name operate on the {@link #DEFAULT_POOL default pool},
+ * which is registered by {@link #initializeDatabase}.
  * </p>
  */
 public class DatabaseConnection {
     private DatabaseConnection() {}
 
-    private static HikariDataSource hikari;
-    private static Logger logger;
+    /** Name of the pool registered by {@link #initializeDatabase} and used if no pool name is given. */
+    public static final String DEFAULT_POOL = "default";
+    /** Caller category used for bulkhead limits if no category is set by {@link SqlHelper#withCategory}. */
+    public static final String DEFAULT_CATEGORY = "default";
+
+    private static final Map<String, DatabasePool> pools = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Boolean> forcePrimary = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<String> category = ThreadLocal.withInitial(() -> DEFAULT_CATEGORY);
+    private static volatile Logger logger;
 
     /**
-     * Initializes the connection pool with the given configuration data.
+     * Initializes the default connection pool with the given configuration data.
      *
      * @param config          The database configuration
      */
     public static void initializeDatabase(@NotNull DatabaseSection config, boolean enableLogging) throws ClassNotFoundException {
-        Class.forName("org.mariadb.jdbc.Driver");
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(config.getUrl() + config.getDbName() + "?allowMultiQueries=true");
-        hikariConfig.setUsername(config.getUsername());
-        hikariConfig.setPassword(config.getPassword());
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
-        hikariConfig.setMaxLifetime(config.getMaxLifetime());
-        hikariConfig.setConnectionTimeout(config.getConnectionTimeout());
-        hikariConfig.setKeepaliveTime(config.getKeepaliveTime());
-        hikariConfig.setMaximumPoolSize(config.getMaximumPoolSize());
-        hikariConfig.setLeakDetectionThreshold(config.getLeakDetectionThreshold());
-        hikariConfig.setPoolName(config.getPoolName());
-
-        hikari = new HikariDataSource(hikariConfig);
-
-        if (enableLogging) {
-            logger = LoggerFactory.getLogger(DatabaseConnection.class);
+        initializeDatabase(config, List.of(), enableLogging);
+    }
+
+    /**
+     * Initializes the default connection pool of the primary database and one read-only pool per replica.
+     * Queries of {@link SqlHelper#runReadQuery} and {@link SqlHelper#streamRead} are routed to the replicas,
+     * while all other queries, writes and transactions use the primary database.
+     *
+     * @param config          The database configuration of the primary database
+     * @param replicaConfigs  The database configurations of the read replicas, see {@link DatabaseConfigPaths#getReplicaConfigs}
+     */
+    public static void initializeDatabase(@NotNull DatabaseSection config, @NotNull List<DatabaseSection> replicaConfigs, boolean enableLogging) throws ClassNotFoundException {
+        register(DEFAULT_POOL, config, replicaConfigs, enableLogging);
+    }
+
+    /**
+     * Registers a named connection pool with the given configuration data.
+     *
+     * @param name   The name of the pool, used to target it in {@link SqlHelper}
+     * @param config The database configuration
+     * @return The registered pool
+     * @see #register(String, DatabaseSection, List, boolean)
+     */
+    public static @NotNull DatabasePool register(@NotNull String name, @NotNull DatabaseSection config) throws ClassNotFoundException {
+        return register(name, config, List.of(), false);
+    }
+
+    /**
+     * Registers a named connection pool of the primary database and one read-only pool per replica.
+     * Every pool is sized by its own configuration and records its own metrics, so plugins sharing
+     * a server can use separate pools for their own schemas and workloads.
+     * A pool previously registered with the same name is shut down.
+     * If warm-up is enabled, the pool is filled in the background, see {@link DatabasePool#whenReady()}.
+     *
+     * @param name           The name of the pool, used to target it in {@link SqlHelper}
+     * @param config         The database configuration of the primary database
+     * @param replicaConfigs The database configurations of the read replicas, see {@link DatabaseConfigPaths#getReplicaConfigs}
+     * @return The registered pool
+     */
+    public static @NotNull DatabasePool register(@NotNull String name, @NotNull DatabaseSection config, @NotNull List<DatabaseSection> replicaConfigs,
+                                                 boolean enableLogging) throws ClassNotFoundException {
+        Class.forName(config.getDriverClassName());
+        DatabasePool pool = new DatabasePool(name, config, replicaConfigs, enableLogging);
+        if (enableLogging) logger = LoggerFactory.getLogger(DatabaseConnection.class);
+        DatabasePool previous = pools.put(name, pool);
+        if (previous != null) previous.shutdown();
+        pool.startWarmUp(false);
+        return pool;
+    }
+
+    /**
+     * Replaces the default pool with a new pool built from the given configuration, without downtime.
+     *
+     * @param config The new database configuration
+     * @return A future completed once new checkouts use the new pool
+     * @see #reconfigure(String, DatabaseSection, List)
+     */
+    public static @NotNull CompletableFuture<Void> reconfigure(@NotNull DatabaseSection config) {
+        return reconfigure(DEFAULT_POOL, config, List.of());
+    }
+
+    /**
+     * Replaces the named pool with a new pool built from the given configuration, e.g. after a configuration
+     * reload to rotate credentials or to retune the pool.
+     * <p>
+     * The new pool is built and warmed up in the background while the old pool keeps serving requests,
+     * so the calling thread never waits for the database.
+     * Once the new pool is ready, all new checkouts atomically switch to it and its {@link WriteBehindBuffer}s
+     * are moved over. The old pool is closed after its checked-out connections have been returned, or after
+     * its {@link DatabaseSection#getDrainTimeout() drain timeout}. If the new pool cannot be warmed up,
+     * e.g. because of wrong credentials, it is closed and the old pool stays in use.
+     * If no pool is registered with the name, the new pool is registered once it is built.
+     * </p>
+     *
+     * @param name           The name of the pool
+     * @param config         The new database configuration of the primary database
+     * @param replicaConfigs The new database configurations of the read replicas
+     * @return A future completed once new checkouts use the new pool, or completed exceptionally if the new pool failed to start
+     */
+    public static @NotNull CompletableFuture<Void> reconfigure(@NotNull String name, @NotNull DatabaseSection config, @NotNull List<DatabaseSection> replicaConfigs) {
+        return CompletableFuture.supplyAsync(() -> {
+            DatabasePool previous = pools.get(name);
+            if (previous != null) return replace(name, previous, new DatabasePool(name, config, replicaConfigs, previous.isLoggingEnabled()));
+            try {
+                return register(name, config, replicaConfigs, false).whenReady();
+            } catch (ClassNotFoundException e) {
+                throw new CompletionException(e);
+            }
+        }, task -> Thread.ofVirtual().name("alpslib-db-reconfigure-" + name).start(task)).thenCompose(Function.identity());
+    }
+
+    /**
+     * Warms up the new pool and swaps it in for the previous one once it is ready.
+     */
+    private static @NotNull CompletableFuture<Void> replace(@NotNull String name, @NotNull DatabasePool previous, @NotNull DatabasePool next) {
+        next.startWarmUp(true);
+        return next.whenReady().whenComplete((r, t) -> {
+            if (t != null || !pools.replace(name, previous, next)) {
+                next.shutdown();
+                return;
+            }
+
+            previous.transferWriteBehindBuffers(next);
+            Thread.ofVirtual().name("alpslib-db-drain-" + name).start(previous::drainAndShutdown);
+        }).thenAccept(r -> {
+            if (pools.get(name) != next) throw new IllegalStateException("Database pool '" + name + "' was replaced concurrently.");
+        });
+    }
+
+    /**
+     * Returns the pool registered with the given name.
+     *
+     * @param name The name of the pool
+     * @return The pool, or {@code null} if no pool is registered with this name
+     */
+    public static @Nullable DatabasePool getPool(@NotNull String name) {
+        return pools.get(name);
+    }
+
+    /**
+     * Returns a future completed once the warm-up of the default pool has finished.
+     *
+     * @return A future completed when the pool is ready, or completed exceptionally if the warm-up failed
+     *         or the database is not initialized
+     * @see DatabasePool#whenReady()
+     */
+    public static @NotNull CompletableFuture<Void> whenReady() {
+        DatabasePool pool = pools.get(DEFAULT_POOL);
+        if (pool == null) {
+            return CompletableFuture.failedFuture(new SQLException("Unable to warm up the pool. (database is not initialized)"));
+        }
+
+        return pool.whenReady();
+    }
+
+    /**
+     * Returns the pool registered with the given name.
+     *
+     * @throws SQLException If no pool is registered with this name
+     */
+    static @NotNull DatabasePool requirePool(@NotNull String name) throws SQLException {
+        DatabasePool pool = pools.get(name);
+        if (pool == null) {
+            throw new SQLException("Unable to get a connection from the pool. (pool '" + name + "' is not registered)");
         }
+
+        return pool;
     }
 
     /**
-     * Returns a new connection from the connection pool.
+     * Returns a new connection from the default connection pool.
      *
      * @return An open SQL connection
      * @throws SQLException If no connection is available
      */
     public static @NotNull Connection getConnection() throws SQLException {
-        if (hikari == null) {
-            throw new SQLException("Unable to get a connection from the pool. (hikari is null)");
+        return getConnection(DEFAULT_POOL);
+    }
+
+    /**
+     * Returns a new connection from the named connection pool.
+     *
+     * @param name The name of the pool
+     * @return An open SQL connection
+     * @throws SQLException If the pool is not registered or no connection is available
+     */
+    public static @NotNull Connection getConnection(@NotNull String name) throws SQLException {
+        return requirePool(name).getConnection();
+    }
+
+    /**
+     * Returns a connection of the default pool for read-only work.
+     *
+     * @return An open SQL connection
+     * @throws SQLException If no connection is available
+     * @see DatabasePool#getReadConnection()
+     */
+    public static @NotNull Connection getReadConnection() throws SQLException {
+        return requirePool(DEFAULT_POOL).getReadConnection();
+    }
+
+    /**
+     * Routes all reads of the given task on the current thread to the primary database,
+     * e.g. to read data that was just written and might not be replicated yet.
+     */
+    static <T> T readFromPrimary(@NotNull SqlHelper.SQLCheckedSupplier<T> task) throws SQLException {
+        if (forcePrimary.get()) return task.get();
+        forcePrimary.set(true);
+        try {
+            return task.get();
+        } finally {
+            forcePrimary.remove();
         }
+    }
+
+    /**
+     * @return Whether reads of the current thread are routed to the primary database
+     */
+    static boolean isReadingFromPrimary() {
+        return forcePrimary.get();
+    }
 
-        Connection connection = hikari.getConnection();
-        if (connection == null) {
-            throw new SQLException("Unable to get a connection from the pool. (getConnection returned null)");
+    /**
+     * Runs the given task with all connections of the current thread counted against the given caller category.
+     */
+    static <T> T withCategory(@NotNull String name, @NotNull SqlHelper.SQLCheckedSupplier<T> task) throws SQLException {
+        String previous = category.get();
+        category.set(name);
+        try {
+            return task.get();
+        } finally {
+            if (DEFAULT_CATEGORY.equals(previous)) category.remove();
+            else category.set(previous);
         }
+    }
 
-        return connection;
+    /**
+     * @return The caller category of the current thread
+     */
+    static @NotNull String getCategory() {
+        return category.get();
     }
 
     /**
-     * Closes the connection pool and releases all resources.
-     * Logs success or a warning if no connection exists, if logger is set.
+     * Returns the metrics of the default pool, such as per-statement latencies and the time spent
+     * waiting for pooled connections.
+     *
+     * @return The query metrics, or {@code null} if the database is not initialized
+     */
+    public static @Nullable QueryMetrics getMetrics() {
+        DatabasePool pool = pools.get(DEFAULT_POOL);
+        return pool != null ? pool.getMetrics() : null;
+    }
+
+    /**
+     * Returns the cache of the default pool used by {@link SqlHelper#runCachedQuery}, e.g. to read its statistics
+     * or to invalidate a table written outside of {@link SqlHelper}.
+     *
+     * @return The query cache, or {@code null} if it is disabled or the database is not initialized
+     */
+    public static @Nullable QueryCache getQueryCache() {
+        DatabasePool pool = pools.get(DEFAULT_POOL);
+        return pool != null ? pool.getQueryCache() : null;
+    }
+
+    /**
+     * Closes all connection pools and releases all resources.
+     * Pending updates of all {@link WriteBehindBuffer}s are flushed before the pools are closed.
+     * Logs success for every pool registered with logging enabled, or a warning if no pool exists
+     * and a pool was ever registered with logging enabled.
      */
     public static void shutdown() {
-        if (hikari != null) {
-            hikari.close();
-            if (logger != null) logger.info("Database connection closed successfully.");
-        } else {
-            if (logger != null) logger.warn("No database connection to close.");
-        }
+        List<String> names = List.copyOf(pools.keySet());
+        if (names.isEmpty() && logger != null) logger.warn("No database connection to close.");
+        for (String name : names) shutdown(name);
+    }
+
+    /**
+     * Closes the named connection pool and releases its resources.
+     * Pending updates of its {@link WriteBehindBuffer}s are flushed before the pool is closed.
+     *
+     * @param name The name of the pool
+     */
+    public static void shutdown(@NotNull String name) {
+        DatabasePool pool = pools.remove(name);
+        if (pool != null) pool.shutdown();
     }
 }
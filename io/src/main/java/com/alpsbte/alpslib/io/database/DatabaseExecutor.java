@@ -0,0 +1,94 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor used for asynchronous database work.
+ * <p>
+ * Every task runs on its own virtual thread, while a semaphore sized to the connection pool
+ * limits how many tasks can work on the database at the same time. Waiting tasks park
+ * cheaply instead of piling up inside {@code getConnection()}, but only up to the configured
+ * number of waiting tasks; further tasks are rejected with a {@link DatabaseRejectedException}.
+ * Waiting tasks are interrupted and fail if the executor does not terminate in time on shutdown.
+ * </p>
+ */
+final class DatabaseExecutor {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Semaphore queued;
+    private final int maxQueued;
+
+    DatabaseExecutor(int parallelism, int maxQueued) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("alpslib-db-", 0).factory());
+        this.permits = new Semaphore(Math.max(1, parallelism), true);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.queued = new Semaphore(this.maxQueued);
+    }
+
+    /**
+     * Runs a task once a permit is available.
+     *
+     * @param task The task to run
+     * @param <T>  The type of result to return
+     * @return A future completed with the result of the {@code task}, or failed with a {@link DatabaseRejectedException}
+     * if too many tasks are already waiting, or with an {@link SQLException} if the executor is shut down
+     */
+    <T> @NotNull CompletableFuture<T> submit(@NotNull SqlHelper.SQLCheckedSupplier<T> task) {
+        if (!queued.tryAcquire()) {
+            return CompletableFuture.failedFuture(new DatabaseRejectedException(DatabaseRejectedException.Reason.QUEUE_FULL,
+                    "Unable to run an asynchronous query. (" + maxQueued + " tasks are already waiting)"));
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            queued.release();
+            return CompletableFuture.failedFuture(new SQLException("Unable to run an asynchronous query. (executor is shut down)", e));
+        }
+        return future;
+    }
+
+    private <T> void run(@NotNull SqlHelper.SQLCheckedSupplier<T> task, @NotNull CompletableFuture<T> future) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            future.completeExceptionally(new CompletionException(new SQLException("Unable to run an asynchronous query. (interrupted while waiting)", e)));
+            return;
+        } finally {
+            queued.release();
+        }
+
+        try {
+            future.complete(task.get());
+        } catch (SQLException | RuntimeException e) {
+            future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Stops accepting new tasks and waits for the running ones to finish.
+     *
+     * @param timeoutMillis Maximum time to wait before pending tasks are interrupted
+     */
+    void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) executor.shutdownNow();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.alpsbte.alpslib.io.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named connection pool registered in {@link DatabaseConnection}.
+ * <p>
+ * Every pool owns its HikariCP data source, its read replicas, its executor for asynchronous
+ * work, its metrics and its query cache, so plugins sharing a server can size and monitor
+ * their pools independently.
+ * </p>
+ */
+public final class DatabasePool {
+    private final String name;
+    private final DatabaseSection section;
+    private final HikariDataSource hikari;
+    private final List<Replica> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final DatabaseExecutor executor;
+    private final QueryMetrics metrics;
+    private final QueryCache queryCache;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptivePoolSizer sizer;
+    private final MainThreadGuard mainThreadGuard;
+    private final Set<WriteBehindBuffer> writeBehindBuffers = new CopyOnWriteArraySet<>();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final Logger logger;
+
+    DatabasePool(@NotNull String name, @NotNull DatabaseSection config, @NotNull List<DatabaseSection> replicaConfigs, boolean enableLogging) {
+        this.name = name;
+        this.section = config;
+        this.hikari = createDataSource(config, false);
+        this.replicas = createReplicas(hikari, replicaConfigs);
+        this.metrics = new QueryMetrics(name, config.getSlowQueryThreshold(), config.getMaximumPoolSize());
+        this.queryCache = config.getQueryCacheMaxWeight() > 0 ? new QueryCache(config.getQueryCacheTtl(), config.getQueryCacheMaxWeight()) : null;
+        this.executor = new DatabaseExecutor(Math.max(config.getMaximumPoolSize(), config.getAdaptiveMaximumPoolSize()), config.getAsyncMaxQueued());
+        this.bulkhead = config.getBulkheadMaxConcurrent() > 0 ? new Bulkhead(config.getBulkheadMaxConcurrent(), maxConnections(config, replicaConfigs),
+                config.getBulkheadMaxQueued(), config.getBulkheadMaxWait(), config.getBulkheadCategoryLimits()) : null;
+        this.circuitBreaker = config.getCircuitBreakerFailureThreshold() > 0
+                ? new CircuitBreaker(name, config.getCircuitBreakerFailureThreshold(), config.getCircuitBreakerOpenDuration()) : null;
+        this.sizer = config.getAdaptiveMaximumPoolSize() > 0 ? new AdaptivePoolSizer(name, hikari, metrics, config) : null;
+        this.mainThreadGuard = config.getMainThreadPolicy() != MainThreadPolicy.OFF ? new MainThreadGuard(name, config.getMainThreadPolicy(), metrics) : null;
+        this.logger = enableLogging ? LoggerFactory.getLogger(DatabaseConnection.class) : null;
+    }
+
+    /**
+     * @return The number of connections the primary and replica pools can hand out together, the pool-wide limit of the bulkhead
+     */
+    private static int maxConnections(@NotNull DatabaseSection config, @NotNull List<DatabaseSection> replicaConfigs) {
+        int connections = Math.max(config.getMaximumPoolSize(), config.getAdaptiveMaximumPoolSize());
+        for (DatabaseSection replica : replicaConfigs) connections += replica.getMaximumPoolSize();
+        return connections;
+    }
+
+    /**
+     * Creates the replica pools, closing the primary pool and all replica pools created so far if one cannot be created.
+     */
+    private static @NotNull List<Replica> createReplicas(@NotNull HikariDataSource primary, @NotNull List<DatabaseSection> replicaConfigs) {
+        List<Replica> replicas = new ArrayList<>(replicaConfigs.size());
+        try {
+            for (DatabaseSection replicaConfig : replicaConfigs) replicas.add(Replica.of(replicaConfig));
+        } catch (RuntimeException e) {
+            for (Replica replica : replicas) replica.dataSource().close();
+            primary.close();
+            throw e;
+        }
+        return List.copyOf(replicas);
+    }
+
+    private static @NotNull HikariDataSource createDataSource(@NotNull DatabaseSection config, boolean readOnly) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(config.getUrl() + config.getDbName() + config.getUrlParameters());
+        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setPassword(config.getPassword());
+        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+        hikariConfig.addDataSourceProperty("useBulkStmts", String.valueOf(config.isUseBulkStatements()));
+        hikariConfig.addDataSourceProperty("useBulkStmtsForInserts", String.valueOf(config.isUseBulkStatementsForInserts()));
+        hikariConfig.setMaxLifetime(config.getMaxLifetime());
+        hikariConfig.setConnectionTimeout(config.getConnectionTimeout());
+        hikariConfig.setKeepaliveTime(config.getKeepaliveTime());
+        hikariConfig.setMaximumPoolSize(config.getMaximumPoolSize());
+        if (config.getMinimumIdle() >= 0) hikariConfig.setMinimumIdle(config.getMinimumIdle());
+        hikariConfig.setLeakDetectionThreshold(config.getLeakDetectionThreshold());
+        hikariConfig.setPoolName(config.getPoolName());
+        hikariConfig.setReadOnly(readOnly);
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * Fills the connection pools to their minimum number of idle connections in the background,
+     * validating every connection and preparing the configured warm-up statements on it.
+     * Completes {@link #whenReady()} once done, or immediately if warm-up is disabled.
+     *
+     * @param force Whether to warm up even if warm-up is disabled in the configuration
+     */
+    void startWarmUp(boolean force) {
+        if (!force && !section.isWarmUp()) {
+            ready.complete(null);
+            return;
+        }
+
+        executor.submit(() -> {
+            long start = System.nanoTime();
+            int connections = warmUp(hikari);
+            for (Replica replica : replicas) connections += warmUp(replica.dataSource());
+            if (logger != null) {
+                logger.info("Database pool {} warmed up {} connections in {} ms.", name, connections, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return null;
+        }).whenComplete((result, e) -> {
+            if (e == null) {
+                ready.complete(null);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (logger != null) logger.error("Could not warm up database pool {}.", name, cause);
+            ready.completeExceptionally(cause);
+        });
+    }
+
+    /**
+     * Checks out as many connections as the data source keeps idle, so each one is established,
+     * and prepares the warm-up statements on every connection.
+     *
+     * @return The number of warmed up connections
+     */
+    private int warmUp(@NotNull HikariDataSource dataSource) throws SQLException {
+        int count = Math.max(1, Math.min(dataSource.getMinimumIdle(), dataSource.getMaximumPoolSize()));
+        int validationTimeout = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(dataSource.getConnectionTimeout()));
+        List<Connection> connections = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Connection con = dataSource.getConnection();
+                connections.add(con);
+                if (!con.isValid(validationTimeout)) {
+                    throw new SQLException("Unable to warm up pool " + dataSource.getPoolName() + ". (connection is not valid)");
+                }
+                for (String sql : section.getWarmUpStatements()) con.prepareStatement(sql).close();
+            }
+        } finally {
+            for (Connection con : connections) {
+                try {
+                    con.close();
+                } catch (SQLException e) {
+                    if (logger != null) logger.warn("Could not return warmed up connection to pool {}.", dataSource.getPoolName(), e);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a future completed once the warm-up of this pool has finished, so plugins can enable
+     * database-backed features without blocking while the pool is filled.
+     * If warm-up is disabled, the future is already completed.
+     *
+     * @return A future completed when the pool is ready, or completed exceptionally if the warm-up failed
+     */
+    public @NotNull CompletableFuture<Void> whenReady() {
+        return ready.copy();
+    }
+
+    /**
+     * @return The name this pool is registered with
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return The configuration of this pool
+     */
+    public @NotNull DatabaseSection getSection() {
+        return section;
+    }
+
+    /**
+     * Returns a new connection from the primary connection pool.
+     * <p>
+     * If a bulkhead is configured, the connection holds a permit of the caller category of the current thread
+     * (see {@link SqlHelper#withCategory}) until it is closed.
+     * </p>
+     *
+     * @return An open SQL connection
+     * @throws DatabaseRejectedException If the bulkhead is full or the circuit breaker is open
+     * @throws MainThreadAccessException If called on the server main thread with the strict {@link MainThreadPolicy}
+     * @throws SQLException              If no connection is available
+     */
+    public @NotNull Connection getConnection() throws SQLException {
+        return onMainThreadGuard(() -> withPermit(this::checkoutPrimary));
+    }
+
+    /**
+     * Returns a connection for read-only work.
+     * <p>
+     * If read replicas are configured, the connection is taken from a replica pool chosen by the configured
+     * {@link ReplicaSelection}. Otherwise, or inside {@link SqlHelper#readFromPrimary}, or if the replica is
+     * unavailable, the connection is taken from the primary pool.
+     * Every replica has its own circuit breaker, so after a failed checkout the replica is skipped for the
+     * configured open duration instead of stalling every read for the connection timeout.
+     * </p>
+     *
+     * @return An open SQL connection
+     * @throws DatabaseRejectedException If the bulkhead is full or the circuit breaker is open
+     * @throws MainThreadAccessException If called on the server main thread with the strict {@link MainThreadPolicy}
+     * @throws SQLException              If no connection is available
+     */
+    public @NotNull Connection getReadConnection() throws SQLException {
+        return onMainThreadGuard(() -> withPermit(() -> {
+            Replica replica = DatabaseConnection.isReadingFromPrimary() ? null : selectReplica();
+            if (replica == null) return checkoutPrimary();
+
+            try {
+                replica.breaker().beforeCheckout();
+            } catch (DatabaseRejectedException e) {
+                return checkoutPrimary(); // Another thread took the probe of the replica
+            }
+            try {
+                Connection connection = checkout(replica.dataSource());
+                replica.breaker().onSuccess();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                replica.breaker().onFailure();
+                if (logger != null) logger.warn("Replica pool {} is unavailable, reading from the primary database.", replica.dataSource().getPoolName(), e);
+                return checkoutPrimary();
+            }
+        }));
+    }
+
+    /**
+     * Returns whether the circuit breaker of the primary pool currently rejects connection requests.
+     * It only counts failed checkouts of the primary pool; every replica has its own circuit breaker,
+     * and reads fall back to the primary pool while the breaker of a replica is open.
+     *
+     * @return Whether the circuit breaker of this pool currently rejects connection requests
+     */
+    public boolean isCircuitOpen() {
+        return circuitBreaker != null && circuitBreaker.isOpen();
+    }
+
+    private @NotNull Connection onMainThreadGuard(@NotNull SqlHelper.SQLCheckedSupplier<Connection> checkout) throws SQLException {
+        return mainThreadGuard == null ? checkout.get() : mainThreadGuard.guard(checkout);
+    }
+
+    /**
+     * Runs the given checkout holding a permit of the bulkhead, which is released when the connection is closed.
+     */
+    private @NotNull Connection withPermit(@NotNull SqlHelper.SQLCheckedSupplier<Connection> checkout) throws SQLException {
+        try {
+            if (bulkhead == null) return checkout.get();
+
+            String category = DatabaseConnection.getCategory();
+            bulkhead.acquire(category);
+            try {
+                return bulkhead.guard(checkout.get(), category);
+            } catch (SQLException | RuntimeException e) {
+                bulkhead.release(category);
+                throw e;
+            }
+        } catch (DatabaseRejectedException e) {
+            metrics.recordRejection();
+            throw e;
+        }
+    }
+
+    private @NotNull Connection checkoutPrimary() throws SQLException {
+        if (circuitBreaker == null) return checkout(hikari);
+
+        circuitBreaker.beforeCheckout();
+        Connection connection;
+        try {
+            connection = checkout(hikari);
+        } catch (SQLException | RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        circuitBreaker.onSuccess();
+        return connection;
+    }
+
+    /**
+     * @return A replica whose circuit breaker lets a checkout through, or {@code null} if there is none
+     */
+    private @Nullable Replica selectReplica() {
+        if (replicas.isEmpty()) return null;
+
+        if (section.getReplicaSelection() == ReplicaSelection.LEAST_LOADED) {
+            Replica best = null;
+            int bestLoad = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                if (!replica.breaker().isAvailable()) continue;
+                HikariPoolMXBean bean = replica.dataSource().getHikariPoolMXBean();
+                int load = bean != null ? bean.getActiveConnections() + bean.getThreadsAwaitingConnection() : Integer.MAX_VALUE - 1;
+                if (load < bestLoad) {
+                    best = replica;
+                    bestLoad = load;
+                }
+            }
+            return best;
+        }
+
+        int start = nextReplica.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.breaker().isAvailable()) return replica;
+        }
+        return null;
+    }
+
+    private @NotNull Connection checkout(@NotNull HikariDataSource dataSource) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        metrics.recordCheckout(System.nanoTime() - start);
+        if (connection == null) {
+            throw new SQLException("Unable to get a connection from the pool. (getConnection returned null)");
+        }
+
+        return connection;
+    }
+
+    /**
+     * Returns the metrics of this pool, such as per-statement latencies and the time spent
+     * waiting for pooled connections.
+     *
+     * @return The query metrics
+     */
+    public @NotNull QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the cache used by {@link SqlHelper#runCachedQuery}, e.g. to read its statistics
+     * or to invalidate a table written outside of {@link SqlHelper}.
+     *
+     * @return The query cache, or {@code null} if it is disabled
+     */
+    public @Nullable QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * @return The number of rows fetched per round-trip by streamed queries
+     */
+    int getStreamFetchSize() {
+        return section.getStreamFetchSize();
+    }
+
+    /**
+     * Returns the executor used for asynchronous database work.
+     * Its parallelism is bounded by the maximum pool size and its waiting tasks by the configured limit.
+     *
+     * @return The database executor
+     */
+    @NotNull DatabaseExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return Whether this pool logs its lifecycle
+     */
+    boolean isLoggingEnabled() {
+        return logger != null;
+    }
+
+    /**
+     * Moves all {@link WriteBehindBuffer}s of this pool to the given pool, which replaces this one.
+     */
+    void transferWriteBehindBuffers(@NotNull DatabasePool next) {
+        for (WriteBehindBuffer buffer : writeBehindBuffers) {
+            buffer.rebind(next);
+            next.registerWriteBehindBuffer(buffer);
+            writeBehindBuffers.remove(buffer);
+        }
+    }
+
+    void registerWriteBehindBuffer(@NotNull WriteBehindBuffer buffer) {
+        writeBehindBuffers.add(buffer);
+    }
+
+    void unregisterWriteBehindBuffer(@NotNull WriteBehindBuffer buffer) {
+        writeBehindBuffers.remove(buffer);
+    }
+
+    /**
+     * Waits until all connections checked out of this pool are returned, or the drain timeout of the pool has passed,
+     * and then closes this pool.
+     */
+    void drainAndShutdown() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(section.getDrainTimeout());
+        try {
+            while (activeConnections() > 0 && System.nanoTime() - deadline < 0) Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int active = activeConnections();
+        if (active > 0 && logger != null) logger.warn("Closing database pool {} with {} connections still in use.", name, active);
+        shutdown();
+    }
+
+    private int activeConnections() {
+        int active = 0;
+        for (HikariDataSource dataSource : allDataSources()) {
+            HikariPoolMXBean bean = dataSource.getHikariPoolMXBean();
+            if (bean != null) active += bean.getActiveConnections();
+        }
+        return active;
+    }
+
+    private @NotNull List<HikariDataSource> allDataSources() {
+        List<HikariDataSource> dataSources = new ArrayList<>(replicas.size() + 1);
+        dataSources.add(hikari);
+        for (Replica replica : replicas) dataSources.add(replica.dataSource());
+        return dataSources;
+    }
+
+    /**
+     * Closes this pool and releases all resources.
+     * Pending updates of all {@link WriteBehindBuffer}s of this pool are flushed before the pool is closed,
+     * also on the server main thread regardless of the {@link MainThreadPolicy}.
+     */
+    void shutdown() {
+        for (WriteBehindBuffer buffer : writeBehindBuffers) {
+            try {
+                MainThreadGuard.runExempt(buffer::close);
+            } catch (SQLException e) {
+                LoggerFactory.getLogger(DatabaseConnection.class).error("Could not flush write-behind buffer, {} rows are lost.", buffer.getPendingCount(), e);
+            }
+        }
+
+        if (sizer != null) sizer.shutdown();
+        if (mainThreadGuard != null) mainThreadGuard.logSummary();
+        executor.shutdown(hikari.getConnectionTimeout());
+        for (Replica replica : replicas) replica.dataSource().close();
+        hikari.close();
+        if (logger != null) logger.info("Database connection {} closed successfully.", name);
+    }
+
+    /**
+     * A read replica with its own circuit breaker. The breaker is always enabled, opening after the configured
+     * number of consecutive failures, or after the first failure if the circuit breaker of the pool is disabled.
+     */
+    private record Replica(@NotNull HikariDataSource dataSource, @NotNull CircuitBreaker breaker) {
+        private static @NotNull Replica of(@NotNull DatabaseSection config) {
+            HikariDataSource dataSource = createDataSource(config, true);
+            return new Replica(dataSource, new CircuitBreaker(dataSource.getPoolName(),
+                    Math.max(1, config.getCircuitBreakerFailureThreshold()), config.getCircuitBreakerOpenDuration()));
+        }
+    }
+}
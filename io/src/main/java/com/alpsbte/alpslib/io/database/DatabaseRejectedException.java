@@ -0,0 +1,38 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown if a connection is not handed out because the database is overloaded or unavailable,
+ * i.e. the bulkhead of the pool is full, its circuit breaker is open or too many asynchronous tasks are waiting.
+ * The request was rejected without waiting for the database, so it may succeed if retried later.
+ */
+public class DatabaseRejectedException extends SQLTransientConnectionException {
+    /**
+     * The reason a connection request was rejected.
+     */
+    public enum Reason {
+        /** The wait queue of the caller category, or of the asynchronous executor, was full. */
+        QUEUE_FULL,
+        /** No permit of the caller category became available within the maximum wait time. */
+        TIMEOUT,
+        /** The circuit breaker of the pool is open after consecutive failures. */
+        CIRCUIT_OPEN
+    }
+
+    private final Reason reason;
+
+    public DatabaseRejectedException(@NotNull Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    /**
+     * @return The reason the connection request was rejected
+     */
+    public @NotNull Reason getReason() {
+        return reason;
+    }
+}
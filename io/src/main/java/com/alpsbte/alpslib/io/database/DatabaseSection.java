@@ -1,7 +1,12 @@
 package com.alpsbte.alpslib.io.database;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Value;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Configuration data for the database connection.
  * <p>
@@ -10,7 +15,11 @@ import lombok.Value;
  * </p>
  */
 @Value
+@Builder(toBuilder = true)
+@AllArgsConstructor
 public class DatabaseSection {
+    public static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+
     /**
      * The JDBC URL of the database (without database name).
      */
@@ -33,4 +42,128 @@ public class DatabaseSection {
     long leakDetectionThreshold;
     /** Name of the connection pool. */
     String poolName;
+    /** Whether the MariaDB bulk protocol is used for batched statements. */
+    @Builder.Default
+    boolean useBulkStatements = false;
+    /** Whether the MariaDB bulk protocol is used for batched inserts. */
+    @Builder.Default
+    boolean useBulkStatementsForInserts = true;
+    /** Number of rows fetched per round-trip by streamed queries. */
+    @Builder.Default
+    int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+    /** Execution time above which statements are written to the slow-query log (milliseconds, 0 to disable). */
+    @Builder.Default
+    long slowQueryThreshold = 0L;
+    /** Strategy used to choose a read replica for read-only queries. */
+    @Builder.Default
+    ReplicaSelection replicaSelection = ReplicaSelection.ROUND_ROBIN;
+    /** Time after which cached query results expire (milliseconds). */
+    @Builder.Default
+    long queryCacheTtl = 60000L;
+    /** Maximum total weight of cached query results (0 to disable the query cache). */
+    @Builder.Default
+    long queryCacheMaxWeight = 0L;
+    /**
+     * Maximum number of connections held at the same time per caller category (0 to disable the bulkhead).
+     * All categories together are limited to the connections of the primary and replica pools.
+     */
+    @Builder.Default
+    int bulkheadMaxConcurrent = 0;
+    /** Maximum number of callers per category waiting for a permit before further callers are rejected. */
+    @Builder.Default
+    int bulkheadMaxQueued = 100;
+    /** Maximum time a caller waits for a permit of its category before it is rejected (milliseconds). */
+    @Builder.Default
+    long bulkheadMaxWait = 5000L;
+    /** Concurrency limits of individual caller categories, overriding {@link #bulkheadMaxConcurrent}. */
+    @Builder.Default
+    Map<String, Integer> bulkheadCategoryLimits = Map.of();
+    /**
+     * Number of consecutive checkout failures of the primary pool which opens its circuit breaker (0 to disable the circuit breaker).
+     * Every read replica has its own circuit breaker, which opens after the same number of failures (at least 1).
+     */
+    @Builder.Default
+    int circuitBreakerFailureThreshold = 0;
+    /** Time the circuit breaker stays open before a probe request is let through (milliseconds). */
+    @Builder.Default
+    long circuitBreakerOpenDuration = 30000L;
+    /** Minimum number of idle connections kept in the pool (-1 to keep {@link #maximumPoolSize} connections). */
+    @Builder.Default
+    int minimumIdle = -1;
+    /** Whether the pool is filled to {@link #minimumIdle} in the background right after it is registered. */
+    @Builder.Default
+    boolean warmUp = false;
+    /** Frequently used SQL statements prepared on every connection during warm-up. */
+    @Builder.Default
+    List<String> warmUpStatements = List.of();
+    /** Lower bound of the pool size used by adaptive sizing. */
+    @Builder.Default
+    int adaptiveMinimumPoolSize = 2;
+    /** Upper bound of the pool size used by adaptive sizing (0 to disable adaptive sizing). */
+    @Builder.Default
+    int adaptiveMaximumPoolSize = 0;
+    /** Interval in which the pool load is sampled by adaptive sizing (milliseconds). */
+    @Builder.Default
+    long adaptiveSizingInterval = 10000L;
+    /** 95th percentile of the connection wait time above which adaptive sizing grows the pool (milliseconds). */
+    @Builder.Default
+    long adaptiveTargetWait = 5L;
+    /** Behaviour if a connection is requested on the server main thread. */
+    @Builder.Default
+    MainThreadPolicy mainThreadPolicy = MainThreadPolicy.OFF;
+    /** Maximum time a replaced pool waits for its connections in use to be returned before it is closed (milliseconds). */
+    @Builder.Default
+    long drainTimeout = 30000L;
+    /** Fully qualified class name of the JDBC driver. */
+    @Builder.Default
+    String driverClassName = "org.mariadb.jdbc.Driver";
+    /** Parameters appended to the JDBC URL after the database name. */
+    @Builder.Default
+    String urlParameters = "?allowMultiQueries=true";
+    /** Maximum number of asynchronous tasks waiting for the database executor before further tasks are rejected. */
+    @Builder.Default
+    int asyncMaxQueued = 10000;
+
+    /**
+     * Creates a configuration with the given connection settings, using the builder defaults for all other settings.
+     */
+    public DatabaseSection(String url, String dbName, String username, String password, long maxLifetime, long connectionTimeout,
+                           long keepaliveTime, int maximumPoolSize, long leakDetectionThreshold, String poolName) {
+        DatabaseSection defaults = builder().build();
+        this.url = url;
+        this.dbName = dbName;
+        this.username = username;
+        this.password = password;
+        this.maxLifetime = maxLifetime;
+        this.connectionTimeout = connectionTimeout;
+        this.keepaliveTime = keepaliveTime;
+        this.maximumPoolSize = maximumPoolSize;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+        this.poolName = poolName;
+        this.useBulkStatements = defaults.useBulkStatements;
+        this.useBulkStatementsForInserts = defaults.useBulkStatementsForInserts;
+        this.streamFetchSize = defaults.streamFetchSize;
+        this.slowQueryThreshold = defaults.slowQueryThreshold;
+        this.replicaSelection = defaults.replicaSelection;
+        this.queryCacheTtl = defaults.queryCacheTtl;
+        this.queryCacheMaxWeight = defaults.queryCacheMaxWeight;
+        this.bulkheadMaxConcurrent = defaults.bulkheadMaxConcurrent;
+        this.bulkheadMaxQueued = defaults.bulkheadMaxQueued;
+        this.bulkheadMaxWait = defaults.bulkheadMaxWait;
+        this.bulkheadCategoryLimits = defaults.bulkheadCategoryLimits;
+        this.circuitBreakerFailureThreshold = defaults.circuitBreakerFailureThreshold;
+        this.circuitBreakerOpenDuration = defaults.circuitBreakerOpenDuration;
+        this.minimumIdle = defaults.minimumIdle;
+        this.warmUp = defaults.warmUp;
+        this.warmUpStatements = defaults.warmUpStatements;
+        this.adaptiveMinimumPoolSize = defaults.adaptiveMinimumPoolSize;
+        this.adaptiveMaximumPoolSize = defaults.adaptiveMaximumPoolSize;
+        this.adaptiveSizingInterval = defaults.adaptiveSizingInterval;
+        this.adaptiveTargetWait = defaults.adaptiveTargetWait;
+        this.mainThreadPolicy = defaults.mainThreadPolicy;
+        this.drainTimeout = defaults.drainTimeout;
+        this.driverClassName = defaults.driverClassName;
+        this.urlParameters = defaults.urlParameters;
+        this.asyncMaxQueued = defaults.asyncMaxQueued;
+    }
 }
@@ -0,0 +1,381 @@
+package com.alpsbte.alpslib.io.database;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pages through the rows of a query by seeking past the key of the last row of the previous page,
+ * instead of skipping rows with {@code LIMIT ? OFFSET ?}.
+ * <p>
+ * The base query must select all key columns and must not contain an {@code ORDER BY} or {@code LIMIT} clause.
+ * The key columns are referenced by their labels in the select list, must not be {@code NULL}, and must identify
+ * a row uniquely, so the last key column should be the primary key. With an index on the key columns, every page
+ * costs the same as the first one, no matter how deep it is.
+ * </p>
+ * <p>
+ * The base query is wrapped into a derived table, which MariaDB merges into the paging query so that the seek
+ * predicate reaches the index. Base queries that cannot be merged, i.e. with {@code DISTINCT}, {@code GROUP BY},
+ * {@code HAVING}, aggregate or window functions, or set operators such as {@code UNION}, would be materialized
+ * in full for every page and are rejected. Page over the underlying table instead and aggregate per row,
+ * e.g. with a correlated subquery in the select list.
+ * </p>
+ * <p>
+ * Every page returns an opaque continuation token which fetches the following page, e.g. when a player clicks
+ * the next-page button of a menu. The SQL text is the same for every page, so the pooled connections reuse
+ * their prepared statement.
+ * </p>
+ * <pre>{@code
+ * KeysetPager<PlotRecord> pager = KeysetPager.of("SELECT id, owner_uuid, status, created_at FROM plots WHERE city_id = ?",
+ *         RowMapper.of(PlotRecord.class), 45, "created_at DESC", "id DESC");
+ * KeysetPager.Page<PlotRecord> page = pager.fetch(ps -> ps.setInt(1, cityId), token);
+ * }</pre>
+ *
+ * @param <T> The type each row is mapped to
+ */
+public final class KeysetPager<T> {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final Pattern NOT_MERGEABLE = Pattern.compile("(?i)\\b(DISTINCT|DISTINCTROW|GROUP\\s+BY|HAVING|UNION|INTERSECT|EXCEPT"
+            + "|WINDOW|OVER|ORDER\\s+BY|LIMIT|(?:COUNT|SUM|AVG|MIN|MAX|GROUP_CONCAT|JSON_ARRAYAGG|JSON_OBJECTAGG|STD|STDDEV|STDDEV_POP"
+            + "|STDDEV_SAMP|VARIANCE|VAR_POP|VAR_SAMP|BIT_AND|BIT_OR|BIT_XOR)\\s*\\()");
+    private static final byte TOKEN_VERSION = 1;
+
+    private final String poolName;
+    private final String sql;
+    private final SqlHelper.SQLRowMapper<T> mapper;
+    private final int pageSize;
+    private final String[] columns;
+    private final int parameterCount;
+
+    private KeysetPager(@NotNull String poolName, @NotNull String query, @NotNull SqlHelper.SQLRowMapper<T> mapper, int pageSize, String @NotNull ... keys) {
+        if (pageSize <= 0) throw new IllegalArgumentException("The page size must be positive.");
+        if (keys.length == 0) throw new IllegalArgumentException("At least one key column is required.");
+
+        this.poolName = poolName;
+        this.mapper = mapper;
+        this.pageSize = pageSize;
+        this.columns = new String[keys.length];
+        boolean[] descending = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String[] parts = keys[i].trim().split("\\s+");
+            if (parts.length > 2 || !IDENTIFIER.matcher(parts[0]).matches() || (parts.length == 2 && !parts[1].matches("(?i)ASC|DESC"))) {
+                throw new IllegalArgumentException("Invalid key column '" + keys[i] + "', expected a column label optionally followed by ASC or DESC.");
+            }
+            columns[i] = parts[0];
+            descending[i] = parts.length == 2 && parts[1].equalsIgnoreCase("DESC");
+        }
+        this.parameterCount = countParameters(query);
+        checkMergeable(query);
+        this.sql = buildSql(query, columns, descending);
+    }
+
+    /**
+     * Creates a pager running on the default pool.
+     *
+     * @param query    The base query, without {@code ORDER BY} and {@code LIMIT} clauses
+     * @param mapper   A lambda or method reference that maps the current row of the {@link ResultSet}
+     * @param pageSize The maximum number of rows per page
+     * @param keys     The labels of the key columns, each optionally followed by {@code ASC} or {@code DESC}
+     * @param <T>      The type each row is mapped to
+     * @return The pager
+     * @throws IllegalArgumentException If the page size is not positive, a key column is invalid or the base query
+     *                                  cannot be merged into the paging query
+     */
+    public static <T> @NotNull KeysetPager<T> of(String query, @NotNull SqlHelper.SQLRowMapper<T> mapper, int pageSize, String @NotNull ... keys) {
+        return new KeysetPager<>(DatabaseConnection.DEFAULT_POOL, query, mapper, pageSize, keys);
+    }
+
+    /**
+     * Creates a pager running on the named pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #of(String, SqlHelper.SQLRowMapper, int, String...)
+     */
+    public static <T> @NotNull KeysetPager<T> of(@NotNull String poolName, String query, @NotNull SqlHelper.SQLRowMapper<T> mapper, int pageSize,
+                                                 String @NotNull ... keys) {
+        return new KeysetPager<>(poolName, query, mapper, pageSize, keys);
+    }
+
+    /**
+     * Fetches the page following the given continuation token.
+     * If read replicas are configured, the query is executed on a replica.
+     *
+     * @param binder A lambda or method reference that binds the parameters of the base query
+     * @param token  The continuation token of the previous page, or {@code null} to fetch the first page
+     * @return The page
+     * @throws IllegalArgumentException If the token is invalid or was issued by a pager with another query
+     */
+    public @NotNull Page<T> fetch(@NotNull SqlHelper.SQLConsumer binder, @Nullable String token) throws SQLException {
+        Object[] after = token != null ? decode(token) : null;
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getReadConnection()) {
+            return SqlHelper.runQuery(pool, sql, con, ps -> fetch(ps, binder, after));
+        }
+    }
+
+    /**
+     * Fetches the first page.
+     *
+     * @see #fetch(SqlHelper.SQLConsumer, String)
+     */
+    public @NotNull Page<T> first(@NotNull SqlHelper.SQLConsumer binder) throws SQLException {
+        return fetch(binder, null);
+    }
+
+    /**
+     * Walks through all pages, fetching them with a single prepared statement on one pooled connection,
+     * which is held until the last page has been processed. Intended for batch jobs processing whole tables.
+     *
+     * @param binder A lambda or method reference that binds the parameters of the base query
+     * @param action Processes the rows of every page in order
+     */
+    public void forEachPage(@NotNull SqlHelper.SQLConsumer binder, @NotNull PageConsumer<T> action) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getReadConnection()) {
+            SqlHelper.runQuery(pool, sql, con, ps -> {
+                Object[] after = null;
+                do {
+                    Page<T> page = fetch(ps, binder, after);
+                    action.accept(page.getRows());
+                    after = page.hasNext() ? decode(page.getNextToken()) : null;
+                } while (after != null);
+                return null;
+            });
+        }
+    }
+
+    private @NotNull Page<T> fetch(@NotNull PreparedStatement ps, @NotNull SqlHelper.SQLConsumer binder, Object @Nullable [] after) throws SQLException {
+        ps.clearParameters();
+        binder.apply(ps);
+
+        // Parameters of the seek predicate, see buildSql
+        int index = parameterCount + 1;
+        ps.setBoolean(index++, after == null);
+        for (int term = 0; term < columns.length; term++) {
+            for (int i = 0; i <= term; i++) {
+                if (after == null) ps.setNull(index++, Types.NULL);
+                else ps.setObject(index++, after[i]);
+            }
+        }
+        ps.setInt(index, pageSize + 1);
+
+        try (ResultSet rs = ps.executeQuery()) {
+            List<T> rows = new ArrayList<>(pageSize);
+            SqlHelper.SQLRowMapper<T> rowMapper = mapper.forResultSet(rs);
+            Object[] last = null;
+            while (rs.next()) {
+                if (rows.size() == pageSize) {
+                    // A row beyond the page exists, so the page is continued after its last row
+                    return new Page<>(rows, encode(last));
+                }
+                rows.add(rowMapper.map(rs));
+                if (rows.size() == pageSize) last = readKeys(rs);
+            }
+            return new Page<>(rows, null);
+        }
+    }
+
+    private Object @NotNull [] readKeys(@NotNull ResultSet rs) throws SQLException {
+        Object[] keys = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            keys[i] = rs.getObject(columns[i]);
+            if (keys[i] == null) throw new SQLException("Key column " + columns[i] + " of a keyset-paged query must not be NULL.");
+        }
+        return keys;
+    }
+
+    /**
+     * Wraps the base query into a derived table and seeks past the last key with an expanded predicate,
+     * e.g. {@code ? OR a > ? OR (a = ? AND b > ?)} for the keys {@code a, b}. Unlike a row comparison
+     * {@code (a, b) > (?, ?)}, it supports mixed sort directions and uses the index on all MariaDB versions.
+     * The leading flag matches all rows on the first page, so every page uses the same SQL text.
+     */
+    private static @NotNull String buildSql(@NotNull String query, String @NotNull [] columns, boolean @NotNull [] descending) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(query).append(") AS keyset_page WHERE (?");
+        for (int term = 0; term < columns.length; term++) {
+            sql.append(" OR (");
+            for (int i = 0; i < term; i++) sql.append(columns[i]).append(" = ? AND ");
+            sql.append(columns[term]).append(descending[term] ? " < ?" : " > ?").append(')');
+        }
+        sql.append(") ORDER BY ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(columns[i]).append(descending[i] ? " DESC" : " ASC");
+        }
+        return sql.append(" LIMIT ?").toString();
+    }
+
+    /**
+     * Rejects base queries which MariaDB cannot merge into the paging query, see the class documentation.
+     * Only the top level of the query is checked, so subqueries may use any clause.
+     */
+    private static void checkMergeable(@NotNull String query) {
+        StringBuilder topLevel = new StringBuilder(query.length());
+        char quote = 0;
+        int depth = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`') i++;
+                else if (c == quote) quote = 0;
+                c = ' ';
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                c = ' ';
+            } else if (c == '(') {
+                if (depth++ > 0) c = ' ';
+            } else if (c == ')') {
+                if (--depth > 0) c = ' ';
+            } else if (depth > 0) {
+                c = ' ';
+            }
+            topLevel.append(c);
+        }
+
+        Matcher matcher = NOT_MERGEABLE.matcher(topLevel);
+        if (matcher.find()) {
+            throw new IllegalArgumentException("The base query of a keyset pager must be mergeable into the paging query, found "
+                    + matcher.group(1).replaceAll("\\s+", " ").replace("(", "").toUpperCase(Locale.ROOT) + ".");
+        }
+    }
+
+    /**
+     * Counts the parameters of the base query, ignoring question marks in quoted strings and identifiers.
+     */
+    private static int countParameters(@NotNull String query) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`') i++;
+                else if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encodes the key values as a URL-safe token, tagged with their types and the hash of the SQL text.
+     */
+    private @NotNull String encode(Object @NotNull [] keys) throws SQLException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TOKEN_VERSION);
+            out.writeInt(sql.hashCode());
+            for (int i = 0; i < keys.length; i++) {
+                switch (keys[i]) {
+                    case Integer v -> { out.writeByte('I'); out.writeInt(v); }
+                    case Short v -> { out.writeByte('I'); out.writeInt(v); }
+                    case Byte v -> { out.writeByte('I'); out.writeInt(v); }
+                    case Long v -> { out.writeByte('J'); out.writeLong(v); }
+                    case BigInteger v -> { out.writeByte('N'); out.writeUTF(v.toString()); }
+                    case BigDecimal v -> { out.writeByte('D'); out.writeUTF(v.toString()); }
+                    case Double v -> { out.writeByte('F'); out.writeDouble(v); }
+                    case Float v -> { out.writeByte('f'); out.writeFloat(v); }
+                    case Boolean v -> { out.writeByte('Z'); out.writeBoolean(v); }
+                    case String v -> { out.writeByte('S'); out.writeUTF(v); }
+                    case Timestamp v -> { out.writeByte('T'); out.writeLong(v.getTime()); out.writeInt(v.getNanos()); }
+                    case java.sql.Date v -> { out.writeByte('d'); out.writeUTF(v.toLocalDate().toString()); }
+                    case LocalDateTime v -> { out.writeByte('t'); out.writeUTF(v.toString()); }
+                    case LocalDate v -> { out.writeByte('d'); out.writeUTF(v.toString()); }
+                    case byte[] v -> { out.writeByte('B'); out.writeInt(v.length); out.write(v); }
+                    default -> throw new SQLException("Key column " + columns[i] + " has an unsupported type for keyset paging: "
+                            + keys[i].getClass().getName() + ".");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Not thrown by in-memory streams
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private Object @NotNull [] decode(@NotNull String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != TOKEN_VERSION || in.readInt() != sql.hashCode()) throw new IllegalArgumentException("Continuation token of another query.");
+            Object[] keys = new Object[columns.length];
+            for (int i = 0; i < keys.length; i++) {
+                byte tag = in.readByte();
+                keys[i] = switch (tag) {
+                    case 'I' -> in.readInt();
+                    case 'J' -> in.readLong();
+                    case 'N' -> new BigInteger(in.readUTF());
+                    case 'D' -> new BigDecimal(in.readUTF());
+                    case 'F' -> in.readDouble();
+                    case 'f' -> in.readFloat();
+                    case 'Z' -> in.readBoolean();
+                    case 'S' -> in.readUTF();
+                    case 'T' -> {
+                        Timestamp timestamp = new Timestamp(in.readLong());
+                        timestamp.setNanos(in.readInt());
+                        yield timestamp;
+                    }
+                    case 't' -> LocalDateTime.parse(in.readUTF());
+                    case 'd' -> LocalDate.parse(in.readUTF());
+                    case 'B' -> in.readNBytes(in.readInt());
+                    default -> throw new IllegalArgumentException("Unknown value type '" + (char) tag + "'.");
+                };
+            }
+            if (in.available() > 0) throw new IllegalArgumentException("Trailing data.");
+            return keys;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token.", e);
+        }
+    }
+
+    /**
+     * Processes the rows of a page, see {@link #forEachPage}.
+     *
+     * @param <T> The type each row is mapped to
+     */
+    @FunctionalInterface
+    public interface PageConsumer<T> {
+        void accept(List<T> rows) throws SQLException;
+    }
+
+    /**
+     * A page of rows and the token to fetch the following page.
+     *
+     * @param <T> The type each row is mapped to
+     */
+    @Value
+    public static class Page<T> {
+        /** The rows of the page, in key order. */
+        List<T> rows;
+        /** The continuation token of the following page, or {@code null} if this is the last page. */
+        @Nullable String nextToken;
+
+        /**
+         * @return Whether a following page exists
+         */
+        public boolean hasNext() {
+            return nextToken != null;
+        }
+    }
+}
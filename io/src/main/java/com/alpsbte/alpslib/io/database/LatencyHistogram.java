@@ -0,0 +1,140 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ * <p>
+ * Values are recorded in microseconds. Every power of two is split into eight linear
+ * sub-buckets, which bounds the error of reported percentiles to 12.5%.
+ * </p>
+ */
+public final class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // ~12 days in microseconds
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a single latency.
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(indexOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * @return An immutable copy of the current state of this histogram
+     */
+    public @NotNull Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) counts[i] = buckets.get(i);
+        return new Snapshot(counts, count.sum(), totalMicros.sum(), maxMicros.get());
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < LINEAR_BUCKETS) return (int) micros;
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT) return BUCKETS - 1;
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < LINEAR_BUCKETS) return index;
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS | subBucket) + 1 << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Immutable state of a {@link LatencyHistogram} at a point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        private Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * @return The number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The sum of all recorded values
+         */
+        public @NotNull Duration getTotal() {
+            return Duration.ofNanos(totalMicros * 1000);
+        }
+
+        /**
+         * @return The mean of all recorded values
+         */
+        public @NotNull Duration getMean() {
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(totalMicros * 1000 / count);
+        }
+
+        /**
+         * @return The highest recorded value
+         */
+        public @NotNull Duration getMax() {
+            return Duration.ofNanos(maxMicros * 1000);
+        }
+
+        /**
+         * Returns the values recorded after the given earlier snapshot of the same histogram.
+         * The maximum of the result is the maximum of this snapshot, since it cannot be narrowed down.
+         *
+         * @param earlier An earlier snapshot of the same histogram
+         * @return A snapshot of the values recorded in between
+         */
+        public @NotNull Snapshot since(@NotNull Snapshot earlier) {
+            long[] diff = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) diff[i] = counts[i] - earlier.counts[i];
+            return new Snapshot(diff, count - earlier.count, totalMicros - earlier.totalMicros, maxMicros);
+        }
+
+        /**
+         * Returns the value below which the given fraction of recorded values falls.
+         *
+         * @param quantile The quantile between {@code 0.0} and {@code 1.0}, e.g. {@code 0.99}
+         * @return The approximated percentile, or {@link Duration#ZERO} if nothing was recorded
+         */
+        public @NotNull Duration getPercentile(double quantile) {
+            if (count == 0) return Duration.ZERO;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Duration.ofNanos(Math.min(upperBoundOf(i), maxMicros) * 1000);
+            }
+            return getMax();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.alpsbte.alpslib.io.database;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown if a database connection is requested on the server main thread while the
+ * {@link MainThreadPolicy#STRICT strict} main-thread policy is configured.
+ */
+public class MainThreadAccessException extends SQLException {
+    public MainThreadAccessException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,108 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Detects connections requested on the server main thread, which block the tick until they are closed.
+ * <p>
+ * The call site is the first stack frame outside of this package. In {@link MainThreadPolicy#WARN warn}
+ * mode, the stack of every call site is logged once and the time from requesting to closing the
+ * connection is accumulated per call site in the {@link QueryMetrics} of the pool. In
+ * {@link MainThreadPolicy#STRICT strict} mode, the request is rejected. Internal work which has to run on
+ * the calling thread, such as the final flush of write-behind buffers on shutdown, is exempt.
+ * </p>
+ */
+final class MainThreadGuard {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MainThreadGuard.class);
+    private static final String PACKAGE_PREFIX = MainThreadGuard.class.getPackageName() + ".";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final ThreadLocal<Boolean> exempt = ThreadLocal.withInitial(() -> false);
+    /** Tells whether the current thread is the server main thread, replaced by tests running without a server. */
+    static volatile BooleanSupplier mainThread = () -> Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+
+    private final String poolName;
+    private final MainThreadPolicy policy;
+    private final QueryMetrics metrics;
+    private final Set<String> reportedCallSites = ConcurrentHashMap.newKeySet();
+
+    MainThreadGuard(@NotNull String poolName, @NotNull MainThreadPolicy policy, @NotNull QueryMetrics metrics) {
+        this.poolName = poolName;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the given checkout, checking whether it happens on the server main thread.
+     *
+     * @param checkout The checkout to run
+     * @return The checked out connection, measuring the blocking time until it is closed if taken on the main thread
+     * @throws MainThreadAccessException If the checkout happens on the main thread in strict mode
+     */
+    @NotNull Connection guard(@NotNull SqlHelper.SQLCheckedSupplier<Connection> checkout) throws SQLException {
+        if (exempt.get() || !mainThread.getAsBoolean()) return checkout.get();
+
+        String callSite = callSite();
+        if (policy == MainThreadPolicy.STRICT) {
+            throw new MainThreadAccessException("Database access on the server main thread at " + callSite + " (pool " + poolName + ")");
+        }
+
+        if (reportedCallSites.add(callSite)) {
+            LOGGER.warn("Database access on the server main thread at {} (pool {}). Move this call to an asynchronous task.", callSite, poolName,
+                    new Throwable("Main-thread database access"));
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = checkout.get();
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordMainThreadAccess(callSite, System.nanoTime() - start);
+            throw e;
+        }
+        return CloseHookConnection.wrap(connection, () -> metrics.recordMainThreadAccess(callSite, System.nanoTime() - start));
+    }
+
+    /**
+     * Runs internal database work of this library on the current thread without checking for the main thread,
+     * e.g. the flush of write-behind buffers when the server shuts down the pool from {@code onDisable}.
+     *
+     * @param task The work to run
+     */
+    static void runExempt(@NotNull SqlHelper.SQLRunnable task) throws SQLException {
+        if (exempt.get()) {
+            task.get();
+            return;
+        }
+        exempt.set(true);
+        try {
+            task.get();
+        } finally {
+            exempt.remove();
+        }
+    }
+
+    /**
+     * Logs the accumulated blocking time of every call site, e.g. when the pool is shut down.
+     */
+    void logSummary() {
+        metrics.snapshot().getMainThreadBlocking().forEach((callSite, blocked) -> LOGGER.warn(
+                "Database access on the server main thread at {} blocked the server for {} ms in total (pool {}).",
+                callSite, blocked.toMillis(), poolName));
+    }
+
+    private static @NotNull String callSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith(PACKAGE_PREFIX))
+                .findFirst()
+                .map(frame -> frame.toStackTraceElement().toString())
+                .orElse("<unknown>"));
+    }
+}
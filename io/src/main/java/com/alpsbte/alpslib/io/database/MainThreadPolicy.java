@@ -0,0 +1,13 @@
+package com.alpsbte.alpslib.io.database;
+
+/**
+ * Behaviour if a database connection is requested on the server main thread.
+ */
+public enum MainThreadPolicy {
+    /** Main-thread access is not checked. */
+    OFF,
+    /** The stack of every call site is logged once, and the time the main thread was blocked is recorded. */
+    WARN,
+    /** Main-thread access is rejected with a {@link MainThreadAccessException}. */
+    STRICT
+}
@@ -0,0 +1,80 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Records the types of the parameters bound to a {@link PreparedStatement}.
+ * <p>
+ * Only the shape of the parameters is kept (e.g. {@code [1:Int, 2:String, 3:null]}), never their values,
+ * so it can be logged safely.
+ * </p>
+ */
+final class ParameterShapeRecorder implements InvocationHandler {
+    private final PreparedStatement delegate;
+    private final Map<Integer, String> shapes = new TreeMap<>();
+
+    private ParameterShapeRecorder(PreparedStatement delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wraps the given statement so that the types of its bind parameters are recorded.
+     *
+     * @param ps The statement to wrap
+     * @return A statement recording its parameter shapes
+     */
+    static @NotNull PreparedStatement wrap(@NotNull PreparedStatement ps) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new ParameterShapeRecorder(ps));
+    }
+
+    /**
+     * Describes the parameters bound to the given statement.
+     *
+     * @param ps The statement to describe
+     * @return The recorded parameter shapes, or {@code "?"} if the statement was not wrapped
+     */
+    static @NotNull String describe(PreparedStatement ps) {
+        if (ps == null || !Proxy.isProxyClass(ps.getClass()) || !(Proxy.getInvocationHandler(ps) instanceof ParameterShapeRecorder recorder)) {
+            return "?";
+        }
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        synchronized (recorder.shapes) {
+            recorder.shapes.forEach((index, shape) -> joiner.add(index + ":" + shape));
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public Object invoke(Object proxy, @NotNull Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (args != null && args.length >= 2 && args[0] instanceof Integer index && name.startsWith("set")) {
+            String shape;
+            if (name.equals("setNull") || args[1] == null) shape = "null";
+            else if (name.equals("setObject")) shape = args[1].getClass().getSimpleName();
+            else shape = name.substring(3);
+            synchronized (shapes) {
+                shapes.put(index, shape);
+            }
+        } else if (name.equals("clearParameters")) {
+            synchronized (shapes) {
+                shapes.clear();
+            }
+        }
+
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.alpsbte.alpslib.io.database;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of query results used by {@link SqlHelper#runCachedQuery}.
+ * <p>
+ * Results are keyed by their SQL string, bind values and result function and expire after a fixed time to live.
+ * The cache is bounded by a total weight (the number of elements of collection results, 1 otherwise)
+ * and evicts the least recently used entries first. Every entry is tagged with the tables it reads;
+ * any statement of {@link SqlHelper} writing one of these tables invalidates the entry.
+ * Results are stored and handed out by reference, so they must be immutable; collection results are stored
+ * as unmodifiable copies. Tables may be qualified with a schema, which is ignored.
+ * </p>
+ */
+public final class QueryCache {
+    private static final Pattern READ_TABLES = Pattern.compile("\\b(?:FROM|JOIN)\\s+(?:`?\\w+`?\\.)?`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE_TABLES = Pattern.compile("\\b(?:INTO|UPDATE|FROM|JOIN|TABLE)\\s+(?:`?\\w+`?\\.)?`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Set<Key>> keysByTag = new HashMap<>();
+    private final Map<String, AtomicLong> tagGenerations = new ConcurrentHashMap<>();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    QueryCache(long ttlMillis, long maxWeight) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached result of a query.
+     *
+     * @return The cached result wrapped in a {@link Hit}, or {@code null} on a miss
+     */
+    @Nullable Hit get(@NotNull Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return new Hit(entry.value);
+            }
+            if (entry != null) remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Captures the current generation of the given tags. A result read after this call may only be
+     * cached if none of its tags were invalidated in the meantime.
+     */
+    long @NotNull [] generations(@NotNull Set<String> tags) {
+        long[] generations = new long[tags.size()];
+        int i = 0;
+        for (String tag : tags) generations[i++] = generation(tag).get();
+        return generations;
+    }
+
+    void put(@NotNull Key key, Object value, @NotNull Set<String> tags, long @NotNull [] generations) {
+        long entryWeight = value instanceof Collection<?> collection ? Math.max(1, collection.size()) : 1;
+        if (entryWeight > maxWeight) return;
+
+        synchronized (this) {
+            int i = 0;
+            for (String tag : tags) {
+                if (generation(tag).get() != generations[i++]) return; // Invalidated while the query was running
+            }
+
+            Entry previous = entries.get(key);
+            if (previous != null) remove(key, previous);
+            entries.put(key, new Entry(value, entryWeight, System.nanoTime() + ttlNanos, tags));
+            weight += entryWeight;
+            for (String tag : tags) keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                Map.Entry<Key, Entry> e = eldest.next();
+                eldest.remove();
+                unlink(e.getKey(), e.getValue());
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries tagged with the given table.
+     *
+     * @param table The name of the table that was written
+     */
+    public void invalidate(@NotNull String table) {
+        String tag = tagOf(table);
+        generation(tag).incrementAndGet();
+        synchronized (this) {
+            Set<Key> keys = keysByTag.remove(tag);
+            if (keys == null) return;
+            for (Key key : List.copyOf(keys)) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    remove(key, entry);
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries tagged with a table written by the given statement.
+     *
+     * @param sql The SQL statement that was executed
+     */
+    void invalidateWritten(@NotNull String sql) {
+        for (String table : tablesOf(sql, WRITE_TABLES)) invalidate(table);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        keysByTag.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return The hit, miss and eviction counters of this cache
+     */
+    public synchronized @NotNull Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries.size(), weight);
+    }
+
+    /**
+     * Returns the tag of the given table name, which is the lower-case name without its schema.
+     */
+    static @NotNull String tagOf(@NotNull String table) {
+        return table.substring(table.lastIndexOf('.') + 1).replace("`", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns an unmodifiable copy of a collection or map result, so a cached result cannot be modified through
+     * the reference handed out to its first caller. Other results are returned as they are.
+     */
+    static Object freeze(Object value) {
+        if (value instanceof List<?> list) return Collections.unmodifiableList(new ArrayList<>(list));
+        if (value instanceof Set<?> set) return Collections.unmodifiableSet(new LinkedHashSet<>(set));
+        if (value instanceof Map<?, ?> map) return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+        return value;
+    }
+
+    /**
+     * Returns the tables read by the given query, used as tags if the caller does not name them.
+     */
+    static @NotNull Set<String> readTablesOf(@NotNull String sql) {
+        return tablesOf(sql, READ_TABLES);
+    }
+
+    private static @NotNull Set<String> tablesOf(String sql, @NotNull Pattern pattern) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = pattern.matcher(sql);
+        while (matcher.find()) tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        return tables;
+    }
+
+    private AtomicLong generation(String tag) {
+        return tagGenerations.computeIfAbsent(tag, t -> new AtomicLong());
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        unlink(key, entry);
+    }
+
+    private void unlink(Key key, @NotNull Entry entry) {
+        weight -= entry.weight;
+        for (String tag : entry.tags) {
+            Set<Key> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) keysByTag.remove(tag);
+        }
+    }
+
+    /**
+     * Key of a cached result. The result function is compared by identity for lambdas, so only the same function
+     * object, such as a method reference or a function of {@link RowMapper}, hits the same entry.
+     */
+    record Key(String sql, List<?> params, Object action) {}
+
+    record Hit(Object value) {}
+
+    private record Entry(Object value, long weight, long expiresAt, Set<String> tags) {}
+
+    /**
+     * Counters of a {@link QueryCache} at a point in time.
+     */
+    @Value
+    public static class Statistics {
+        /** Number of lookups answered from the cache. */
+        long hits;
+        /** Number of lookups that had to query the database. */
+        long misses;
+        /** Number of entries evicted to stay below the maximum weight. */
+        long evictions;
+        /** Number of entries removed because a tagged table was written. */
+        long invalidations;
+        /** Number of cached entries. */
+        int size;
+        /** Total weight of all cached entries. */
+        long weight;
+    }
+}
@@ -0,0 +1,174 @@
+package com.alpsbte.alpslib.io.database;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-statement metrics of the database access.
+ * <p>
+ * For every distinct SQL string, the number of calls, the number of failed calls and the
+ * execution latency are recorded. The time spent waiting for a pooled connection is recorded
+ * separately. Statements slower than the configured threshold are written to the slow-query log
+ * together with the types of their bind parameters.
+ * </p>
+ */
+public final class QueryMetrics {
+    /** Upper bound of tracked SQL strings, protecting against dynamically built statements. */
+    private static final int MAX_TRACKED_STATEMENTS = 1024;
+    private static final String OTHER_STATEMENTS = "<other>";
+
+    private final Map<String, Statistics> statements = new ConcurrentHashMap<>();
+    private final LatencyHistogram checkoutWait = new LatencyHistogram();
+    /** Checkout waits as of the last reset; the histogram itself is never reset, since adaptive sizing samples it. */
+    private volatile LatencyHistogram.Snapshot checkoutWaitBaseline = checkoutWait.snapshot();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder resizes = new LongAdder();
+    private final Map<String, LongAdder> mainThreadBlocking = new ConcurrentHashMap<>();
+    private volatile int poolSize;
+    private final String poolName;
+    private final long slowQueryThresholdNanos;
+    private final Logger slowQueryLogger;
+
+    QueryMetrics(@NotNull String poolName, long slowQueryThresholdMillis, int poolSize) {
+        this.poolName = poolName;
+        this.poolSize = poolSize;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+        this.slowQueryLogger = slowQueryThresholdMillis > 0 ? LoggerFactory.getLogger("AlpsLib-SlowQuery") : null;
+    }
+
+    /**
+     * @return Whether statements should record the types of their bind parameters
+     */
+    boolean isSlowQueryLogEnabled() {
+        return slowQueryLogger != null;
+    }
+
+    void recordCheckout(long nanos) {
+        checkoutWait.record(nanos);
+    }
+
+    void recordRejection() {
+        rejections.increment();
+    }
+
+    void recordResize(int newPoolSize) {
+        poolSize = newPoolSize;
+        resizes.increment();
+    }
+
+    void recordMainThreadAccess(@NotNull String callSite, long nanos) {
+        LongAdder blocked = mainThreadBlocking.get(callSite);
+        if (blocked == null) {
+            blocked = mainThreadBlocking.size() < MAX_TRACKED_STATEMENTS
+                    ? mainThreadBlocking.computeIfAbsent(callSite, s -> new LongAdder())
+                    : mainThreadBlocking.computeIfAbsent(OTHER_STATEMENTS, s -> new LongAdder());
+        }
+        blocked.add(nanos);
+    }
+
+    @NotNull LatencyHistogram.Snapshot checkoutWaitSnapshot() {
+        return checkoutWait.snapshot();
+    }
+
+    void recordExecution(@NotNull String sql, PreparedStatement ps, long nanos, boolean failed) {
+        Statistics statistics = statements.get(sql);
+        if (statistics == null) {
+            statistics = statements.size() < MAX_TRACKED_STATEMENTS
+                    ? statements.computeIfAbsent(sql, s -> new Statistics())
+                    : statements.computeIfAbsent(OTHER_STATEMENTS, s -> new Statistics());
+        }
+        statistics.latency.record(nanos);
+        if (failed) statistics.errors.increment();
+
+        if (slowQueryLogger != null && nanos >= slowQueryThresholdNanos) {
+            slowQueryLogger.warn("Slow query on pool {} ({} ms{}): {} parameters={}", poolName, TimeUnit.NANOSECONDS.toMillis(nanos),
+                    failed ? ", failed" : "", sql, ParameterShapeRecorder.describe(ps));
+        }
+    }
+
+    /**
+     * Returns the metrics recorded so far.
+     *
+     * @return An immutable snapshot of all metrics
+     */
+    public @NotNull Snapshot snapshot() {
+        Map<String, StatementSnapshot> result = new LinkedHashMap<>();
+        statements.forEach((sql, statistics) -> {
+            LatencyHistogram.Snapshot latency = statistics.latency.snapshot();
+            result.put(sql, new StatementSnapshot(sql, latency.getCount(), statistics.errors.sum(),
+                    latency.getPercentile(0.5), latency.getPercentile(0.95), latency.getPercentile(0.99), latency));
+        });
+        Map<String, Duration> blocking = new LinkedHashMap<>();
+        mainThreadBlocking.forEach((callSite, nanos) -> blocking.put(callSite, Duration.ofNanos(nanos.sum())));
+        return new Snapshot(Collections.unmodifiableMap(result), checkoutWait.snapshot().since(checkoutWaitBaseline), rejections.sum(), poolSize,
+                resizes.sum(), Collections.unmodifiableMap(blocking));
+    }
+
+    /**
+     * Discards all recorded metrics. The current pool size is kept, and the maximum checkout wait
+     * of later snapshots still covers the whole lifetime of the pool.
+     */
+    public void reset() {
+        statements.clear();
+        mainThreadBlocking.clear();
+        checkoutWaitBaseline = checkoutWait.snapshot();
+        rejections.reset();
+        resizes.reset();
+    }
+
+    private static final class Statistics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Metrics of the database access at a point in time.
+     */
+    @Value
+    public static class Snapshot {
+        /** Metrics per SQL string. */
+        Map<String, StatementSnapshot> statements;
+        /** Time spent waiting for a pooled connection. */
+        LatencyHistogram.Snapshot checkoutWait;
+        /** Number of connection requests rejected by the bulkhead or the circuit breaker. */
+        long rejections;
+        /** Current maximum size of the primary connection pool. */
+        int poolSize;
+        /** Number of times the pool was resized by adaptive sizing. */
+        long resizes;
+        /** Time the server main thread was blocked by database access, per call site. */
+        Map<String, Duration> mainThreadBlocking;
+    }
+
+    /**
+     * Metrics of a single SQL string at a point in time.
+     */
+    @Value
+    public static class StatementSnapshot {
+        /** The SQL string. */
+        String sql;
+        /** Number of executions. */
+        long calls;
+        /** Number of failed executions. */
+        long errors;
+        /** Median execution latency. */
+        Duration p50;
+        /** 95th percentile execution latency. */
+        Duration p95;
+        /** 99th percentile execution latency. */
+        Duration p99;
+        /** Full execution latency distribution. */
+        LatencyHistogram.Snapshot latency;
+    }
+}
@@ -0,0 +1,11 @@
+package com.alpsbte.alpslib.io.database;
+
+/**
+ * Strategy used to choose a read replica for read-only queries.
+ */
+public enum ReplicaSelection {
+    /** Replicas are used one after another. */
+    ROUND_ROBIN,
+    /** The replica with the fewest active and waiting connections is used. */
+    LEAST_LOADED
+}
@@ -0,0 +1,300 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps {@link ResultSet} rows onto records or immutable classes with an all-arguments constructor,
+ * such as Lombok {@code @Value} classes.
+ * <p>
+ * Every record component is bound to the column with the same name, ignoring case and underscores,
+ * so {@code playerName} matches a column {@code player_name}. Classes are bound by the parameter names of
+ * their constructor with the most parameters, which are taken from {@link ConstructorProperties} (added by Lombok
+ * with {@code lombok.anyConstructor.addConstructorProperties = true}) or from the class file if it was compiled
+ * with {@code -parameters}. Primitive components must not be mapped from {@code NULL} columns.
+ * The bindings are resolved once per column layout of a query into a single {@link MethodHandle}
+ * which reads every column with its typed getter and calls the constructor, so no reflection or
+ * boxing of primitive columns happens per row.
+ * </p>
+ * <pre>{@code
+ * List<PlotRecord> plots = SqlHelper.runQuery("SELECT id, owner_uuid, status FROM plots WHERE city_id = ?",
+ *         RowMapper.of(PlotRecord.class).list(ps -> ps.setInt(1, cityId)));
+ * }</pre>
+ *
+ * @param <T> The type each row is mapped to
+ */
+public final class RowMapper<T> implements SqlHelper.SQLRowMapper<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<Class<?>, String> GETTERS = Map.ofEntries(
+            Map.entry(boolean.class, "getBoolean"), Map.entry(byte.class, "getByte"), Map.entry(short.class, "getShort"),
+            Map.entry(int.class, "getInt"), Map.entry(long.class, "getLong"), Map.entry(float.class, "getFloat"),
+            Map.entry(double.class, "getDouble"), Map.entry(String.class, "getString"), Map.entry(BigDecimal.class, "getBigDecimal"),
+            Map.entry(byte[].class, "getBytes"), Map.entry(java.sql.Date.class, "getDate"), Map.entry(java.sql.Time.class, "getTime"),
+            Map.entry(java.sql.Timestamp.class, "getTimestamp"));
+    private static final ClassValue<RowMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected RowMapper<?> computeValue(@NotNull Class<?> type) {
+            return new RowMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final List<String> names;
+    private final MethodHandle constructor;
+    private final Map<List<String>, MethodHandle> bindings = new ConcurrentHashMap<>();
+    private final SqlHelper.SQLFunction<List<T>> listAll = list(ps -> {});
+
+    @SuppressWarnings("unchecked")
+    private RowMapper(@NotNull Class<T> type) {
+        this.type = type;
+        Constructor<T> ctor;
+        try {
+            if (type.isRecord()) {
+                RecordComponent[] components = type.getRecordComponents();
+                this.names = Arrays.stream(components).map(RecordComponent::getName).toList();
+                ctor = type.getDeclaredConstructor(Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new));
+            } else {
+                List<String> parameterNames = null;
+                ctor = null;
+                for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+                    List<String> candidateNames = parameterNames(candidate);
+                    if (candidateNames != null && (parameterNames == null || candidateNames.size() > parameterNames.size())) {
+                        parameterNames = candidateNames;
+                        ctor = (Constructor<T>) candidate;
+                    }
+                }
+                if (ctor == null) throw new NoSuchMethodException(type.getName() + ".<init> with named parameters");
+                this.names = parameterNames;
+            }
+            ctor.trySetAccessible();
+            this.constructor = LOOKUP.unreflectConstructor(ctor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(type.getName() + " must be a record or have a constructor annotated with @ConstructorProperties "
+                    + "or compiled with -parameters.", e);
+        }
+    }
+
+    /**
+     * Returns the parameter names of the given constructor, or {@code null} if they are not available.
+     */
+    private static @Nullable List<String> parameterNames(@NotNull Constructor<?> ctor) {
+        ConstructorProperties properties = ctor.getAnnotation(ConstructorProperties.class);
+        if (properties != null) return properties.value().length == ctor.getParameterCount() ? List.of(properties.value()) : null;
+
+        Parameter[] parameters = ctor.getParameters();
+        if (parameters.length == 0 || !parameters[0].isNamePresent()) return null;
+        return Arrays.stream(parameters).map(Parameter::getName).toList();
+    }
+
+    /**
+     * Returns the mapper of the given type. Mappers are cached, so this method is cheap to call.
+     *
+     * @param type A record or a class with a constructor whose parameter names are available
+     * @param <T>  The type each row is mapped to
+     * @return The mapper of the given type
+     * @throws IllegalArgumentException If the type has no suitable constructor
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> @NotNull RowMapper<T> of(@NotNull Class<T> type) {
+        return (RowMapper<T>) MAPPERS.get(type);
+    }
+
+    /**
+     * Maps the current row of the given result set, looking up the binding of its column layout.
+     * Streams and lists look up the binding once per result set instead, see {@link #forResultSet(ResultSet)}.
+     *
+     * @param rs The result set positioned on a row
+     * @return The mapped row
+     */
+    @Override
+    public T map(@NotNull ResultSet rs) throws SQLException {
+        return invoke(binding(rs), rs);
+    }
+
+    /**
+     * Returns a mapper bound to the column layout of the given result set, which maps its rows without any lookup.
+     *
+     * @param rs The result set to map
+     * @return A mapper for the rows of the result set
+     */
+    @Override
+    public @NotNull SqlHelper.SQLRowMapper<T> forResultSet(@NotNull ResultSet rs) throws SQLException {
+        MethodHandle handle = binding(rs);
+        return row -> invoke(handle, row);
+    }
+
+    /**
+     * Returns a function executing the query and mapping all rows, to be used with {@link SqlHelper#runQuery}.
+     *
+     * @param binder A lambda or method reference that binds the parameters of the {@link PreparedStatement}
+     * @return A function returning the mapped rows
+     */
+    public @NotNull SqlHelper.SQLFunction<List<T>> list(@NotNull SqlHelper.SQLConsumer binder) {
+        return ps -> {
+            binder.apply(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<T> rows = new ArrayList<>();
+                if (!rs.next()) return rows;
+                MethodHandle handle = binding(rs);
+                do {
+                    rows.add(invoke(handle, rs));
+                } while (rs.next());
+                return rows;
+            }
+        };
+    }
+
+    /**
+     * Returns a function executing a query without parameters and mapping all rows.
+     * The same function is returned on every call, so it can be used with {@link SqlHelper#runCachedQuery}.
+     *
+     * @see #list(SqlHelper.SQLConsumer)
+     */
+    public @NotNull SqlHelper.SQLFunction<List<T>> list() {
+        return listAll;
+    }
+
+    /**
+     * Returns a function executing the query and mapping its first row, to be used with {@link SqlHelper#runQuery}.
+     *
+     * @param binder A lambda or method reference that binds the parameters of the {@link PreparedStatement}
+     * @return A function returning the mapped first row, or {@code null} if the query returned no rows
+     */
+    public @NotNull SqlHelper.SQLFunction<@Nullable T> first(@NotNull SqlHelper.SQLConsumer binder) {
+        return ps -> {
+            binder.apply(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? invoke(binding(rs), rs) : null;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private T invoke(@NotNull MethodHandle handle, ResultSet rs) throws SQLException {
+        try {
+            return (T) (Object) handle.invokeExact(rs);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SQLException("Unable to map row to " + type.getName() + ".", t);
+        }
+    }
+
+    /**
+     * Returns the handle mapping rows of the column layout of the given result set, resolving it on first use.
+     */
+    private @NotNull MethodHandle binding(@NotNull ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        List<String> columns = new ArrayList<>(meta.getColumnCount());
+        for (int i = 1; i <= meta.getColumnCount(); i++) columns.add(meta.getColumnLabel(i));
+
+        MethodHandle handle = bindings.get(columns);
+        if (handle == null) {
+            handle = bind(columns);
+            bindings.putIfAbsent(List.copyOf(columns), handle);
+        }
+        return handle;
+    }
+
+    /**
+     * Builds a handle {@code (ResultSet) -> Object} reading every column with its typed getter and passing it to the constructor.
+     */
+    private @NotNull MethodHandle bind(@NotNull List<String> columns) throws SQLException {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) indexes.putIfAbsent(normalize(columns.get(i)), i + 1);
+
+        MethodType constructorType = constructor.type();
+        MethodHandle[] readers = new MethodHandle[names.size()];
+        for (int i = 0; i < readers.length; i++) {
+            Integer column = indexes.get(normalize(names.get(i)));
+            if (column == null) throw new SQLException("No column found for " + type.getSimpleName() + "." + names.get(i) + " in " + columns + ".");
+            try {
+                readers[i] = reader(constructorType.parameterType(i), column);
+                if (constructorType.parameterType(i).isPrimitive()) {
+                    readers[i] = requireNonNull(readers[i], "Column " + columns.get(column - 1) + " is NULL and cannot be mapped to the primitive "
+                            + type.getSimpleName() + "." + names.get(i) + ".");
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new SQLException("Unable to read column " + columns.get(column - 1) + " as " + constructorType.parameterType(i).getName() + ".", e);
+            }
+        }
+
+        MethodHandle handle = MethodHandles.filterArguments(constructor, 0, readers);
+        handle = MethodHandles.permuteArguments(handle, MethodType.methodType(type, ResultSet.class), new int[readers.length]);
+        return handle.asType(MethodType.methodType(Object.class, ResultSet.class));
+    }
+
+    /**
+     * Returns a handle {@code (ResultSet) -> type} reading the given column.
+     */
+    private static @NotNull MethodHandle reader(@NotNull Class<?> type, int column) throws ReflectiveOperationException {
+        MethodHandle getter;
+        String getterName = GETTERS.get(type);
+        if (getterName != null) {
+            getter = LOOKUP.findVirtual(ResultSet.class, getterName, MethodType.methodType(type, int.class));
+        } else if (type.isEnum() || type == UUID.class) {
+            MethodHandle getString = LOOKUP.findVirtual(ResultSet.class, "getString", MethodType.methodType(String.class, int.class));
+            MethodHandle converter = type == UUID.class
+                    ? LOOKUP.findStatic(RowMapper.class, "toUuid", MethodType.methodType(UUID.class, String.class))
+                    : LOOKUP.findStatic(RowMapper.class, "toEnum", MethodType.methodType(Object.class, Class.class, String.class)).bindTo(type);
+            getter = MethodHandles.filterReturnValue(getString, converter);
+        } else {
+            MethodHandle getObject = LOOKUP.findVirtual(ResultSet.class, "getObject", MethodType.methodType(Object.class, int.class, Class.class));
+            getter = MethodHandles.insertArguments(getObject, 2, type);
+        }
+        return MethodHandles.insertArguments(getter, 1, column).asType(MethodType.methodType(type, ResultSet.class));
+    }
+
+    /**
+     * Wraps the given reader of a primitive column into a handle which throws an {@link SQLException} with the given message
+     * if the column was {@code NULL}, instead of returning {@code 0} or {@code false}.
+     */
+    private static @NotNull MethodHandle requireNonNull(@NotNull MethodHandle reader, @NotNull String message) throws ReflectiveOperationException {
+        Class<?> type = reader.type().returnType();
+        MethodHandle check = LOOKUP.findStatic(RowMapper.class, "checkNotNull", MethodType.methodType(void.class, String.class, ResultSet.class))
+                .bindTo(message);
+        // (value, rs) -> check(rs); return value
+        MethodHandle checked = MethodHandles.foldArguments(MethodHandles.dropArguments(MethodHandles.identity(type), 1, ResultSet.class), 1, check);
+        return MethodHandles.foldArguments(checked, 0, reader);
+    }
+
+    @SuppressWarnings("unused")
+    private static void checkNotNull(String message, ResultSet rs) throws SQLException {
+        if (rs.wasNull()) throw new SQLException(message);
+    }
+
+    private static @NotNull String normalize(@NotNull String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    @SuppressWarnings({"unused", "unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> type, String value) {
+        return value == null ? null : Enum.valueOf((Class) type, value);
+    }
+
+    @SuppressWarnings("unused")
+    private static UUID toUuid(String value) {
+        return value == null ? null : UUID.fromString(value);
+    }
+}
@@ -0,0 +1,86 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator fetching the rows of a {@link ResultSet} lazily.
+ * <p>
+ * The result set, its statement and (if owned) its connection are released as soon as the
+ * last row has been read, an error occurs or {@link #close()} is called, whichever comes first.
+ * </p>
+ *
+ * @param <T> The type each row is mapped to
+ */
+final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+    private final ResultSet rs;
+    private final PreparedStatement ps;
+    private final Connection con;
+    private final SqlHelper.SQLRowMapper<T> mapper;
+    private SqlHelper.SQLRowMapper<T> rowMapper;
+    private boolean closed;
+
+    /**
+     * @param rs     The result set to read
+     * @param ps     The statement owning the result set
+     * @param con    The connection to release on close, or {@code null} if it is owned by the caller
+     * @param mapper Maps the current row of the result set
+     */
+    RowSpliterator(ResultSet rs, PreparedStatement ps, Connection con, SqlHelper.SQLRowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.rs = rs;
+        this.ps = ps;
+        this.con = con;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull Consumer<? super T> action) {
+        if (closed) return false;
+        try {
+            if (!rs.next()) {
+                close();
+                return false;
+            }
+            if (rowMapper == null) rowMapper = mapper.forResultSet(rs);
+            action.accept(rowMapper.map(rs));
+            return true;
+        } catch (SQLException e) {
+            closeSuppressed(e);
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        SQLException failure = null;
+        for (AutoCloseable resource : new AutoCloseable[]{rs, ps, con}) {
+            if (resource == null) continue;
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) failure = e instanceof SQLException sql ? sql : new SQLException(e);
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw new UncheckedSQLException(failure);
+    }
+
+    private void closeSuppressed(SQLException cause) {
+        try {
+            close();
+        } catch (UncheckedSQLException e) {
+            cause.addSuppressed(e.getCause());
+        }
+    }
+}
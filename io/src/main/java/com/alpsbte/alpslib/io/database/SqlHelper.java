@@ -1,12 +1,22 @@
 package com.alpsbte.alpslib.io.database;
 
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Helper class for executing SQL statements and queries.
@@ -40,6 +50,59 @@ public class SqlHelper {
         void apply(PreparedStatement ps) throws SQLException;
     }
 
+    /**
+     * A functional interface representing an operation that binds one item to a {@link PreparedStatement},
+     * potentially throwing a {@link SQLException}.
+     *
+     * @param <T> The type of item to bind
+     */
+    @FunctionalInterface
+    public interface SQLBinder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /**
+     * A functional interface representing an operation that maps the current row of a {@link ResultSet}
+     * to a result, potentially throwing a {@link SQLException}.
+     *
+     * @param <T> The type each row is mapped to
+     */
+    @FunctionalInterface
+    public interface SQLRowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+
+        /**
+         * Returns the mapper used for all rows of the given result set. It is called once per result set before
+         * the first row is mapped, so a mapper can resolve the column layout once instead of on every row.
+         *
+         * @param rs The result set to map
+         * @return A mapper for the rows of the result set, by default this mapper
+         */
+        default @NotNull SQLRowMapper<T> forResultSet(@NotNull ResultSet rs) throws SQLException {
+            return this;
+        }
+    }
+
+    /**
+     * A functional interface representing an operation that runs inside a {@link SqlTransaction}
+     * and returns a result, potentially throwing a {@link SQLException}.
+     *
+     * @param <T> The type of the result produced by the function
+     */
+    @FunctionalInterface
+    public interface SQLTransactionFunction<T> {
+        T apply(SqlTransaction tx) throws SQLException;
+    }
+
+    /**
+     * A functional interface representing an operation that runs inside a {@link SqlTransaction}
+     * and returns no result, potentially throwing a {@link SQLException}.
+     */
+    @FunctionalInterface
+    public interface SQLTransactionConsumer {
+        void apply(SqlTransaction tx) throws SQLException;
+    }
+
     /**
      * A functional interface representing an operation that supplies a result and may throw a {@link SQLException}.
      * <p>
@@ -64,8 +127,66 @@ public class SqlHelper {
         void get() throws SQLException;
     }
 
+    /**
+     * Returns the asynchronous counterpart of this helper.
+     * Its methods run on a virtual-thread executor bounded by the connection pool size.
+     *
+     * @return An {@link AsyncSqlHelper} whose futures complete on the database thread
+     */
+    public static @NotNull AsyncSqlHelper async() {
+        return AsyncSqlHelper.DEFAULT;
+    }
+
+    /**
+     * Returns the asynchronous counterpart of this helper, completing its futures on the Bukkit main thread.
+     *
+     * @param plugin The plugin used to schedule the completion
+     * @return An {@link AsyncSqlHelper} whose futures complete on the main thread
+     */
+    public static @NotNull AsyncSqlHelper async(@NotNull Plugin plugin) {
+        return AsyncSqlHelper.DEFAULT.onMainThread(plugin);
+    }
+
+    /**
+     * Returns the asynchronous counterpart of this helper targeting the named pool.
+     * Its methods run on the executor of that pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @return An {@link AsyncSqlHelper} whose futures complete on the database thread
+     */
+    public static @NotNull AsyncSqlHelper async(@NotNull String poolName) {
+        return AsyncSqlHelper.DEFAULT.onPool(poolName);
+    }
+
+    /**
+     * Runs the given task and routes all of its queries to the primary database instead of a read replica.
+     * Use this to read data that was just written and might not be replicated yet.
+     *
+     * @param task The task to run
+     * @param <T>  The type of result to return
+     * @return The result returned by the {@code task}
+     */
+    public static <T> T readFromPrimary(@NotNull SQLCheckedSupplier<T> task) throws SQLException {
+        return DatabaseConnection.readFromPrimary(task);
+    }
+
+    /**
+     * Runs the given task and counts all connections it takes against the given caller category.
+     * If a bulkhead is configured, every category can hold at most its configured number of connections,
+     * so e.g. slow background jobs cannot starve player-facing queries.
+     *
+     * @param category The caller category, see {@link DatabaseSection#getBulkheadCategoryLimits()}
+     * @param task     The task to run
+     * @param <T>      The type of result to return
+     * @return The result returned by the {@code task}
+     */
+    public static <T> T withCategory(@NotNull String category, @NotNull SQLCheckedSupplier<T> task) throws SQLException {
+        return DatabaseConnection.withCategory(category, task);
+    }
+
     /**
      * Executes a database query and returns a result using the provided {@link SQLFunction}.
+     * The query is executed on the primary database; see {@link #runReadQuery(String, SQLFunction)} to read from a replica.
      *
      * @param query  The SQL query string to execute
      * @param action A lambda or method reference that performs operations on the {@link PreparedStatement}
@@ -73,8 +194,19 @@ public class SqlHelper {
      * @return The result returned by the {@code action}, or {@code null} if an exception occurs
      */
     public static <T> T runQuery(String query, @NotNull SQLFunction<T> action) throws SQLException {
-        try (Connection con = Objects.requireNonNull(DatabaseConnection.getConnection())) {
-            return runQuery(query, con, action);
+        return runQuery(DatabaseConnection.DEFAULT_POOL, query, action);
+    }
+
+    /**
+     * Executes a database query on the named pool and returns a result using the provided {@link SQLFunction}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runQuery(String, SQLFunction)
+     */
+    public static <T> T runQuery(@NotNull String poolName, String query, @NotNull SQLFunction<T> action) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getConnection()) {
+            return runQuery(pool, query, con, action);
         }
     }
 
@@ -88,23 +220,129 @@ public class SqlHelper {
      * @return The result returned by the {@code action}, or {@code null} if an exception occurs
      */
     public static <T> T runQuery(String query, Connection con, @NotNull SQLFunction<T> action) throws SQLException {
-        try (PreparedStatement ps = con.prepareStatement(query)) {
-            return action.apply(ps);
+        return runQuery(defaultPool(), query, con, action);
+    }
+
+    static <T> T runQuery(@Nullable DatabasePool pool, String query, Connection con, @NotNull SQLFunction<T> action) throws SQLException {
+        try (PreparedStatement ps = prepare(pool, con, query)) {
+            return measure(pool, query, ps, () -> action.apply(ps));
         }
     }
 
     /**
-     * Executes a database query and returns a result using the provided {@link SQLFunction}.
+     * Executes a database query using the provided {@link SQLConsumer}.
+     * The query is executed on the primary database.
      *
      * @param query  The SQL query string to execute
      * @param action A lambda or method reference that performs operations on the {@link PreparedStatement}
      */
     public static void runQuery(String query, @NotNull SQLConsumer action) throws SQLException {
-        try (Connection con = Objects.requireNonNull(DatabaseConnection.getConnection()); PreparedStatement ps = con.prepareStatement(query)) {
+        runQuery(DatabaseConnection.DEFAULT_POOL, query, action);
+    }
+
+    /**
+     * Executes a database query on the named pool using the provided {@link SQLConsumer}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runQuery(String, SQLConsumer)
+     */
+    public static void runQuery(@NotNull String poolName, String query, @NotNull SQLConsumer action) throws SQLException {
+        runQuery(poolName, query, ps -> {
             action.apply(ps);
+            return null;
+        });
+    }
+
+    /**
+     * Executes a read-only database query and returns a result using the provided {@link SQLFunction}.
+     * <p>
+     * If read replicas are configured, the query is executed on a replica, whose connections are read-only,
+     * so the {@code action} must not modify data. A replica may lag behind the primary; use
+     * {@link #runQuery(String, SQLFunction)} or {@link #readFromPrimary} to read data that was just written.
+     * Without replicas, the query is executed on the primary database.
+     * </p>
+     *
+     * @param query  The SQL query string to execute
+     * @param action A lambda or method reference that performs operations on the {@link PreparedStatement}
+     * @param <T>    The type of result to return
+     * @return The result returned by the {@code action}
+     */
+    public static <T> T runReadQuery(String query, @NotNull SQLFunction<T> action) throws SQLException {
+        return runReadQuery(DatabaseConnection.DEFAULT_POOL, query, action);
+    }
+
+    /**
+     * Executes a read-only database query on a replica of the named pool and returns a result using the provided {@link SQLFunction}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runReadQuery(String, SQLFunction)
+     */
+    public static <T> T runReadQuery(@NotNull String poolName, String query, @NotNull SQLFunction<T> action) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getReadConnection()) {
+            return runQuery(pool, query, con, action);
         }
     }
 
+    /**
+     * Executes a database query through the query cache.
+     * <p>
+     * The parameters are bound to the {@link PreparedStatement} in order before the {@code action} runs.
+     * If the same query with equal parameters was cached and has not expired, the cached result is returned
+     * without querying the database. On a miss the query always runs on the primary database, so a result
+     * read from a lagging replica is never cached.
+     * </p>
+     * <p>
+     * The {@code action} is part of the cache key, so callers running the same query with a different action do not
+     * share results. Lambdas are compared by identity: use a method reference, a non-capturing lambda or a function
+     * of {@link RowMapper}, such as {@link RowMapper#list()}, so repeated calls hit the same entry.
+     * </p>
+     * <p>
+     * Cached results are returned by reference to every caller. {@link List}, {@link Set} and {@link java.util.Map Map} results
+     * are stored as unmodifiable copies, so the {@code action} must declare these interfaces as its result type;
+     * any other result must be immutable, e.g. a record. If the query cache is disabled, the query is always executed.
+     * </p>
+     *
+     * @param query  The SQL query string to execute
+     * @param params The values bound to the parameters of the query
+     * @param action A lambda or method reference that executes the {@link PreparedStatement} and maps its result
+     * @param tables The tables the result depends on, used to invalidate it; if empty, the tables are taken
+     *               from the {@code FROM} and {@code JOIN} clauses of the query
+     * @param <T>    The type of result to return
+     * @return The result returned by the {@code action}, possibly from the cache
+     */
+    public static <T> T runCachedQuery(String query, @NotNull List<?> params, @NotNull SQLFunction<T> action, String... tables) throws SQLException {
+        return runCachedQuery(DatabaseConnection.DEFAULT_POOL, query, params, action, tables);
+    }
+
+    /**
+     * Executes a database query on the named pool through the query cache of that pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runCachedQuery(String, List, SQLFunction, String...)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T runCachedQuery(@NotNull String poolName, String query, @NotNull List<?> params, @NotNull SQLFunction<T> action,
+                                       String... tables) throws SQLException {
+        SQLFunction<T> boundAction = ps -> {
+            for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+            return action.apply(ps);
+        };
+
+        QueryCache cache = DatabaseConnection.requirePool(poolName).getQueryCache();
+        if (cache == null) return runQuery(poolName, query, boundAction);
+
+        QueryCache.Key key = new QueryCache.Key(query, Collections.unmodifiableList(new ArrayList<>(params)), action);
+        QueryCache.Hit hit = cache.get(key);
+        if (hit != null) return (T) hit.value();
+
+        Set<String> tags = tables.length == 0 ? QueryCache.readTablesOf(query) : Arrays.stream(tables).map(QueryCache::tagOf).collect(Collectors.toSet());
+        long[] generations = cache.generations(tags);
+        T result = (T) QueryCache.freeze(readFromPrimary(() -> runQuery(poolName, query, boundAction)));
+        cache.put(key, result, tags, generations);
+        return result;
+    }
+
     /**
      * Executes a database query and returns a result using the provided {@link SQLFunction}.
      * This method returns auto-generated keys.
@@ -115,11 +353,24 @@ public class SqlHelper {
      * @return The result returned by the {@code action}
      */
     public static <T> @NotNull T runInsertQuery(String query, @NotNull SQLFunction<T> action) throws SQLException {
-        try (Connection con = Objects.requireNonNull(DatabaseConnection.getConnection())) {
+        return runInsertQuery(DatabaseConnection.DEFAULT_POOL, query, action);
+    }
+
+    /**
+     * Executes a database query on the named pool and returns a result using the provided {@link SQLFunction}.
+     * This method returns auto-generated keys.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runInsertQuery(String, SQLFunction)
+     */
+    public static <T> @NotNull T runInsertQuery(@NotNull String poolName, String query, @NotNull SQLFunction<T> action) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getConnection()) {
             con.setAutoCommit(false);
-            try (PreparedStatement ps = con.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-                T r = action.apply(ps);
+            try {
+                T r = runInsertQuery(pool, query, con, action);
                 con.commit();
+                invalidateCache(pool, query);
                 return r; // Return the result after successful execution
             } catch (SQLException e) {
                 con.rollback();
@@ -128,6 +379,28 @@ public class SqlHelper {
         }
     }
 
+    /**
+     * Executes a database query and returns a result using the provided {@link SQLFunction}.
+     * This method returns auto-generated keys. The transaction of the connection is not committed.
+     *
+     * @param query  The SQL query string to execute
+     * @param con    The {@link Connection} to use for the query execution
+     * @param action A lambda or method reference that performs operations on the {@link PreparedStatement}
+     * @param <T>    The type of result to return
+     * @return The result returned by the {@code action}
+     */
+    public static <T> T runInsertQuery(String query, Connection con, @NotNull SQLFunction<T> action) throws SQLException {
+        return runInsertQuery(defaultPool(), query, con, action);
+    }
+
+    static <T> T runInsertQuery(@Nullable DatabasePool pool, String query, Connection con, @NotNull SQLFunction<T> action) throws SQLException {
+        try (PreparedStatement ps = prepare(pool, con, query, Statement.RETURN_GENERATED_KEYS)) {
+            return measure(pool, query, ps, () -> action.apply(ps));
+        } finally {
+            invalidateCache(pool, query);
+        }
+    }
+
     /**
      * Executes a database update or mutation operation using the provided {@link SQLConsumer}.
      * This method is intended for operations that do not return a result (e.g. {@code UPDATE}, {@code INSERT}, {@code DELETE}).
@@ -137,10 +410,509 @@ public class SqlHelper {
      * @param action A lambda or method reference that performs the update using the {@link PreparedStatement}
      */
     public static void runStatement(String sql, @NotNull SQLConsumer action) throws SQLException {
-        try (Connection con = Objects.requireNonNull(DatabaseConnection.getConnection());
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            action.apply(ps);
-            ps.executeUpdate();
+        runStatement(DatabaseConnection.DEFAULT_POOL, sql, action);
+    }
+
+    /**
+     * Executes a database update or mutation operation on the named pool using the provided {@link SQLConsumer}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runStatement(String, SQLConsumer)
+     */
+    public static void runStatement(@NotNull String poolName, String sql, @NotNull SQLConsumer action) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getConnection()) {
+            runStatement(pool, sql, con, action);
+        }
+    }
+
+    /**
+     * Executes a database update or mutation operation using the provided {@link SQLConsumer} on the given connection.
+     *
+     * @param sql    The SQL statement to execute
+     * @param con    The {@link Connection} to use for the execution
+     * @param action A lambda or method reference that performs the update using the {@link PreparedStatement}
+     */
+    public static void runStatement(String sql, Connection con, @NotNull SQLConsumer action) throws SQLException {
+        runStatement(defaultPool(), sql, con, action);
+    }
+
+    static void runStatement(@Nullable DatabasePool pool, String sql, Connection con, @NotNull SQLConsumer action) throws SQLException {
+        try (PreparedStatement ps = prepare(pool, con, sql)) {
+            measure(pool, sql, ps, () -> {
+                action.apply(ps);
+                return ps.executeUpdate();
+            });
+        } finally {
+            invalidateCache(pool, sql);
+        }
+    }
+
+    /**
+     * Runs the given work in a single transaction on one pooled connection of the primary database.
+     * The transaction is committed if the work completes and rolled back if it throws.
+     * After a deadlock or lock wait timeout, the whole work is retried, so it must not have side effects
+     * outside the database.
+     *
+     * @param body A lambda or method reference that performs operations on the {@link SqlTransaction}
+     * @param <T>  The type of result to return
+     * @return The result returned by the {@code body}
+     */
+    public static <T> T inTransaction(@NotNull SQLTransactionFunction<T> body) throws SQLException {
+        return inTransaction(DatabaseConnection.DEFAULT_POOL, TransactionOptions.DEFAULT, body);
+    }
+
+    /**
+     * Runs the given work without a result in a single transaction on one pooled connection of the primary database.
+     * Named differently from {@link #inTransaction(SQLTransactionFunction)}, so lambdas need no cast to pick an overload.
+     *
+     * @param body A lambda or method reference that performs operations on the {@link SqlTransaction}
+     * @see #inTransaction(SQLTransactionFunction)
+     */
+    public static void runInTransaction(@NotNull SQLTransactionConsumer body) throws SQLException {
+        runInTransaction(DatabaseConnection.DEFAULT_POOL, body);
+    }
+
+    /**
+     * Runs the given work in a single transaction on one pooled connection of the primary database.
+     *
+     * @param options The isolation level and retry behaviour of the transaction
+     * @param body    A lambda or method reference that performs operations on the {@link SqlTransaction}
+     * @param <T>     The type of result to return
+     * @return The result returned by the {@code body}
+     * @see #inTransaction(SQLTransactionFunction)
+     */
+    public static <T> T inTransaction(@NotNull TransactionOptions options, @NotNull SQLTransactionFunction<T> body) throws SQLException {
+        return inTransaction(DatabaseConnection.DEFAULT_POOL, options, body);
+    }
+
+    /**
+     * Runs the given work in a single transaction on one pooled connection of the named pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #inTransaction(SQLTransactionFunction)
+     */
+    public static <T> T inTransaction(@NotNull String poolName, @NotNull SQLTransactionFunction<T> body) throws SQLException {
+        return inTransaction(poolName, TransactionOptions.DEFAULT, body);
+    }
+
+    /**
+     * Runs the given work without a result in a single transaction on one pooled connection of the named pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runInTransaction(SQLTransactionConsumer)
+     */
+    public static void runInTransaction(@NotNull String poolName, @NotNull SQLTransactionConsumer body) throws SQLException {
+        inTransaction(poolName, TransactionOptions.DEFAULT, tx -> {
+            body.apply(tx);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given work in a single transaction on one pooled connection of the named pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @param options  The isolation level and retry behaviour of the transaction
+     * @see #inTransaction(SQLTransactionFunction)
+     */
+    public static <T> T inTransaction(@NotNull String poolName, @NotNull TransactionOptions options, @NotNull SQLTransactionFunction<T> body) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        for (int attempt = 0; ; attempt++) {
+            try (Connection con = pool.getConnection()) {
+                if (options.getIsolationLevel() != null) con.setTransactionIsolation(options.getIsolationLevel());
+                con.setAutoCommit(false);
+                SqlTransaction tx = new SqlTransaction(pool, con);
+                try {
+                    T result = body.apply(tx);
+                    con.commit();
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    try {
+                        con.rollback();
+                    } catch (SQLException rollbackException) {
+                        e.addSuppressed(rollbackException);
+                    }
+                    throw e;
+                } finally {
+                    tx.getWrittenStatements().forEach(sql -> invalidateCache(pool, sql));
+                }
+            } catch (SQLException e) {
+                if (attempt >= options.getMaxRetries() || !SqlTransaction.isRetryable(e)) throw e;
+                try {
+                    Thread.sleep(options.getRetryBackoff() << attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a statement once for every item in batches of {@code batchSize}, reusing one connection
+     * and one {@link PreparedStatement}. All batches run in a single transaction.
+     *
+     * @param sql       The SQL statement to execute
+     * @param items     The items to write
+     * @param binder    A lambda or method reference that binds one item to the {@link PreparedStatement}
+     * @param batchSize The number of items sent per round-trip
+     * @param <T>       The type of item to write
+     * @return The update counts of all executed items
+     */
+    public static <T> int @NotNull [] runBatch(String sql, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder, int batchSize) throws SQLException {
+        return runBatch(DatabaseConnection.DEFAULT_POOL, sql, items, binder, batchSize);
+    }
+
+    /**
+     * Executes a statement on the named pool once for every item in batches of {@code batchSize}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runBatch(String, Iterable, SQLBinder, int)
+     */
+    public static <T> int @NotNull [] runBatch(@NotNull String poolName, String sql, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder,
+                                               int batchSize) throws SQLException {
+        return runBatch(DatabaseConnection.requirePool(poolName), sql, items, binder, batchSize);
+    }
+
+    static <T> int @NotNull [] runBatch(@NotNull DatabasePool pool, String sql, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder,
+                                        int batchSize) throws SQLException {
+        try (Connection con = pool.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                int[] r = runBatch(pool, sql, con, items, binder, batchSize);
+                con.commit();
+                invalidateCache(pool, sql);
+                return r;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Executes a statement once for every item in batches of {@code batchSize}, reusing one {@link PreparedStatement}.
+     *
+     * @param sql       The SQL statement to execute
+     * @param con       The {@link Connection} to use for the execution
+     * @param items     The items to write
+     * @param binder    A lambda or method reference that binds one item to the {@link PreparedStatement}
+     * @param batchSize The number of items sent per round-trip
+     * @param <T>       The type of item to write
+     * @return The update counts of all executed items
+     */
+    public static <T> int @NotNull [] runBatch(String sql, Connection con, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder, int batchSize) throws SQLException {
+        return runBatch(defaultPool(), sql, con, items, binder, batchSize);
+    }
+
+    static <T> int @NotNull [] runBatch(@Nullable DatabasePool pool, String sql, Connection con, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder,
+                                        int batchSize) throws SQLException {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+
+        try (PreparedStatement ps = prepare(pool, con, sql)) {
+            return measure(pool, sql, ps, () -> {
+                BatchCounts counts = new BatchCounts();
+                int pending = 0;
+                for (T item : items) {
+                    binder.bind(ps, item);
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        counts.add(ps.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) counts.add(ps.executeBatch());
+                return counts.toArray();
+            });
+        } finally {
+            invalidateCache(pool, sql);
+        }
+    }
+
+    /**
+     * Executes an insert statement once for every item in batches of {@code batchSize}, reusing one connection
+     * and one {@link PreparedStatement}. All batches run in a single transaction.
+     *
+     * @param sql       The SQL insert statement to execute
+     * @param items     The items to insert
+     * @param binder    A lambda or method reference that binds one item to the {@link PreparedStatement}
+     * @param batchSize The number of items sent per round-trip
+     * @param <T>       The type of item to insert
+     * @return The auto-generated keys of all inserted rows, in insertion order
+     */
+    public static <T> @NotNull List<Long> runBatchInsertQuery(String sql, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder, int batchSize) throws SQLException {
+        return runBatchInsertQuery(DatabaseConnection.DEFAULT_POOL, sql, items, binder, batchSize);
+    }
+
+    /**
+     * Executes an insert statement on the named pool once for every item in batches of {@code batchSize}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #runBatchInsertQuery(String, Iterable, SQLBinder, int)
+     */
+    public static <T> @NotNull List<Long> runBatchInsertQuery(@NotNull String poolName, String sql, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder,
+                                                              int batchSize) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        try (Connection con = pool.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                List<Long> keys = runBatchInsertQuery(pool, sql, con, items, binder, batchSize);
+                con.commit();
+                invalidateCache(pool, sql);
+                return keys;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Executes an insert statement once for every item in batches of {@code batchSize}, reusing one {@link PreparedStatement}.
+     *
+     * @param sql       The SQL insert statement to execute
+     * @param con       The {@link Connection} to use for the execution
+     * @param items     The items to insert
+     * @param binder    A lambda or method reference that binds one item to the {@link PreparedStatement}
+     * @param batchSize The number of items sent per round-trip
+     * @param <T>       The type of item to insert
+     * @return The auto-generated keys of all inserted rows, in insertion order
+     */
+    public static <T> @NotNull List<Long> runBatchInsertQuery(String sql, Connection con, @NotNull Iterable<T> items, @NotNull SQLBinder<T> binder, int batchSize) throws SQLException {
+        return runBatchInsertQuery(defaultPool(), sql, con, items, binder, batchSize);
+    }
+
+    static <T> @NotNull List<Long> runBatchInsertQuery(@Nullable DatabasePool pool, String sql, Connection con, @NotNull Iterable<T> items,
+                                                       @NotNull SQLBinder<T> binder, int batchSize) throws SQLException {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+
+        try (PreparedStatement ps = prepare(pool, con, sql, Statement.RETURN_GENERATED_KEYS)) {
+            return measure(pool, sql, ps, () -> {
+                List<Long> keys = new ArrayList<>();
+                int pending = 0;
+                for (T item : items) {
+                    binder.bind(ps, item);
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        executeBatchWithKeys(ps, keys);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) executeBatchWithKeys(ps, keys);
+                return keys;
+            });
+        } finally {
+            invalidateCache(pool, sql);
+        }
+    }
+
+    /**
+     * Executes a query and returns its rows as a lazily fetched {@link Stream}, using the configured stream fetch size.
+     * The stream holds a pooled connection until it is closed or fully consumed, so it should be used in a
+     * try-with-resources block. Errors while reading rows are thrown as {@link UncheckedSQLException}.
+     * The query is executed on the primary database; see {@link #streamRead(String, SQLConsumer, SQLRowMapper)} to read from a replica.
+     *
+     * @param sql    The SQL query string to execute
+     * @param binder A lambda or method reference that binds the parameters of the {@link PreparedStatement}
+     * @param mapper A lambda or method reference that maps the current row of the {@link ResultSet}
+     * @param <T>    The type each row is mapped to
+     * @return A stream of mapped rows which releases its connection when closed
+     */
+    public static <T> @NotNull Stream<T> stream(String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper) throws SQLException {
+        return stream(DatabaseConnection.DEFAULT_POOL, sql, binder, mapper);
+    }
+
+    /**
+     * Executes a query on the named pool and returns its rows as a lazily fetched {@link Stream},
+     * using the stream fetch size configured for that pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #stream(String, SQLConsumer, SQLRowMapper)
+     */
+    public static <T> @NotNull Stream<T> stream(@NotNull String poolName, String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper) throws SQLException {
+        return stream(poolName, sql, binder, mapper, DatabaseConnection.requirePool(poolName).getStreamFetchSize());
+    }
+
+    /**
+     * Executes a query and returns its rows as a lazily fetched {@link Stream}.
+     * The stream holds a pooled connection until it is closed or fully consumed, so it should be used in a
+     * try-with-resources block. Errors while reading rows are thrown as {@link UncheckedSQLException}.
+     * The query is executed on the primary database.
+     *
+     * @param sql       The SQL query string to execute
+     * @param binder    A lambda or method reference that binds the parameters of the {@link PreparedStatement}
+     * @param mapper    A lambda or method reference that maps the current row of the {@link ResultSet}
+     * @param fetchSize The number of rows fetched per round-trip
+     * @param <T>       The type each row is mapped to
+     * @return A stream of mapped rows which releases its connection when closed
+     */
+    public static <T> @NotNull Stream<T> stream(String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper, int fetchSize) throws SQLException {
+        return stream(DatabaseConnection.DEFAULT_POOL, sql, binder, mapper, fetchSize);
+    }
+
+    /**
+     * Executes a query on the named pool and returns its rows as a lazily fetched {@link Stream}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #stream(String, SQLConsumer, SQLRowMapper, int)
+     */
+    public static <T> @NotNull Stream<T> stream(@NotNull String poolName, String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper,
+                                                int fetchSize) throws SQLException {
+        return stream(poolName, false, sql, binder, mapper, fetchSize);
+    }
+
+    /**
+     * Executes a read-only query and returns its rows as a lazily fetched {@link Stream}, using the configured stream fetch size.
+     * If read replicas are configured, the query is executed on a replica, which may lag behind the primary;
+     * otherwise it is executed on the primary database.
+     *
+     * @see #stream(String, SQLConsumer, SQLRowMapper)
+     * @see #runReadQuery(String, SQLFunction)
+     */
+    public static <T> @NotNull Stream<T> streamRead(String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper) throws SQLException {
+        return streamRead(DatabaseConnection.DEFAULT_POOL, sql, binder, mapper);
+    }
+
+    /**
+     * Executes a read-only query on a replica of the named pool and returns its rows as a lazily fetched {@link Stream},
+     * using the stream fetch size configured for that pool.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #streamRead(String, SQLConsumer, SQLRowMapper)
+     */
+    public static <T> @NotNull Stream<T> streamRead(@NotNull String poolName, String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper) throws SQLException {
+        return streamRead(poolName, sql, binder, mapper, DatabaseConnection.requirePool(poolName).getStreamFetchSize());
+    }
+
+    /**
+     * Executes a read-only query on a replica and returns its rows as a lazily fetched {@link Stream}.
+     *
+     * @param fetchSize The number of rows fetched per round-trip
+     * @see #streamRead(String, SQLConsumer, SQLRowMapper)
+     */
+    public static <T> @NotNull Stream<T> streamRead(String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper, int fetchSize) throws SQLException {
+        return streamRead(DatabaseConnection.DEFAULT_POOL, sql, binder, mapper, fetchSize);
+    }
+
+    /**
+     * Executes a read-only query on a replica of the named pool and returns its rows as a lazily fetched {@link Stream}.
+     *
+     * @param poolName The name of the pool, see {@link DatabaseConnection#register}
+     * @see #streamRead(String, SQLConsumer, SQLRowMapper, int)
+     */
+    public static <T> @NotNull Stream<T> streamRead(@NotNull String poolName, String sql, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper,
+                                                    int fetchSize) throws SQLException {
+        return stream(poolName, true, sql, binder, mapper, fetchSize);
+    }
+
+    private static <T> @NotNull Stream<T> stream(@NotNull String poolName, boolean read, String sql, @NotNull SQLConsumer binder,
+                                                 @NotNull SQLRowMapper<T> mapper, int fetchSize) throws SQLException {
+        DatabasePool pool = DatabaseConnection.requirePool(poolName);
+        Connection con = read ? pool.getReadConnection() : pool.getConnection();
+        try {
+            return stream(pool, sql, con, true, binder, mapper, fetchSize);
+        } catch (SQLException | RuntimeException e) {
+            con.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a query on the given connection and returns its rows as a lazily fetched {@link Stream}.
+     * The connection is not closed with the stream. While the stream is open, no other statement
+     * may be executed on the connection.
+     *
+     * @param sql       The SQL query string to execute
+     * @param con       The {@link Connection} to use for the query execution
+     * @param binder    A lambda or method reference that binds the parameters of the {@link PreparedStatement}
+     * @param mapper    A lambda or method reference that maps the current row of the {@link ResultSet}
+     * @param fetchSize The number of rows fetched per round-trip
+     * @param <T>       The type each row is mapped to
+     * @return A stream of mapped rows which releases its statement when closed
+     */
+    public static <T> @NotNull Stream<T> stream(String sql, Connection con, @NotNull SQLConsumer binder, @NotNull SQLRowMapper<T> mapper, int fetchSize) throws SQLException {
+        return stream(defaultPool(), sql, con, false, binder, mapper, fetchSize);
+    }
+
+    static <T> @NotNull Stream<T> stream(@Nullable DatabasePool pool, String sql, Connection con, boolean ownsConnection, @NotNull SQLConsumer binder,
+                                         @NotNull SQLRowMapper<T> mapper, int fetchSize) throws SQLException {
+        PreparedStatement ps = instrument(pool, con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+        try {
+            ps.setFetchSize(fetchSize);
+            ResultSet rs = measure(pool, sql, ps, () -> {
+                binder.apply(ps);
+                return ps.executeQuery();
+            });
+            RowSpliterator<T> rows = new RowSpliterator<>(rs, ps, ownsConnection ? con : null, mapper);
+            return StreamSupport.stream(rows, false).onClose(rows::close);
+        } catch (SQLException | RuntimeException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the pool used by the methods taking a {@link Connection}, whose pool is unknown.
+     */
+    private static @Nullable DatabasePool defaultPool() {
+        return DatabaseConnection.getPool(DatabaseConnection.DEFAULT_POOL);
+    }
+
+    private static void invalidateCache(@Nullable DatabasePool pool, String sql) {
+        QueryCache cache = pool != null ? pool.getQueryCache() : null;
+        if (cache != null) cache.invalidateWritten(sql);
+    }
+
+    private static @NotNull PreparedStatement prepare(@Nullable DatabasePool pool, @NotNull Connection con, String sql) throws SQLException {
+        return instrument(pool, con.prepareStatement(sql));
+    }
+
+    private static @NotNull PreparedStatement prepare(@Nullable DatabasePool pool, @NotNull Connection con, String sql, int autoGeneratedKeys) throws SQLException {
+        return instrument(pool, con.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    private static @NotNull PreparedStatement instrument(@Nullable DatabasePool pool, @NotNull PreparedStatement ps) {
+        return pool != null && pool.getMetrics().isSlowQueryLogEnabled() ? ParameterShapeRecorder.wrap(ps) : ps;
+    }
+
+    /**
+     * Runs the given work and records its latency for the given SQL string in the metrics of the pool.
+     */
+    private static <T> T measure(@Nullable DatabasePool pool, String sql, PreparedStatement ps, @NotNull SQLCheckedSupplier<T> work) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = work.get();
+            failed = false;
+            return result;
+        } finally {
+            if (pool != null) pool.getMetrics().recordExecution(sql, ps, System.nanoTime() - start, failed);
+        }
+    }
+
+    private static void executeBatchWithKeys(@NotNull PreparedStatement ps, List<Long> keys) throws SQLException {
+        ps.executeBatch();
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            while (rs.next()) keys.add(rs.getLong(1));
+        }
+    }
+
+    /**
+     * Collects the update counts of several {@link PreparedStatement#executeBatch()} calls.
+     */
+    private static final class BatchCounts {
+        private int[] counts = new int[16];
+        private int size;
+
+        void add(int @NotNull [] batch) {
+            if (size + batch.length > counts.length) counts = Arrays.copyOf(counts, Math.max(counts.length * 2, size + batch.length));
+            System.arraycopy(batch, 0, counts, size, batch.length);
+            size += batch.length;
+        }
+
+        int @NotNull [] toArray() {
+            return Arrays.copyOf(counts, size);
         }
     }
 }
@@ -0,0 +1,172 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A database transaction bound to a single pooled connection.
+ * <p>
+ * All methods run on the connection of the transaction, so the statements of one unit of work
+ * share one connection and are committed or rolled back together.
+ * Instances are created by {@link SqlHelper#inTransaction(SqlHelper.SQLTransactionFunction)}.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class SqlTransaction {
+    // MariaDB error codes, see https://mariadb.com/kb/en/mariadb-error-code-reference/
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final String SQL_STATE_SERIALIZATION_FAILURE = "40001";
+
+    private final DatabasePool pool;
+    private final Connection con;
+    private final Set<String> writtenStatements = new HashSet<>();
+
+    SqlTransaction(@NotNull DatabasePool pool, Connection con) {
+        this.pool = pool;
+        this.con = con;
+    }
+
+    /**
+     * @return The statements written in this transaction, used to invalidate the query cache after it ends
+     */
+    @NotNull Set<String> getWrittenStatements() {
+        return writtenStatements;
+    }
+
+    /**
+     * @return The pool this transaction was started on
+     */
+    public @NotNull DatabasePool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return The connection this transaction is bound to
+     */
+    public @NotNull Connection getConnection() {
+        return con;
+    }
+
+    /**
+     * @see SqlHelper#runQuery(String, SqlHelper.SQLFunction)
+     */
+    public <T> T runQuery(String query, @NotNull SqlHelper.SQLFunction<T> action) throws SQLException {
+        return SqlHelper.runQuery(pool, query, con, action);
+    }
+
+    /**
+     * @see SqlHelper#runQuery(String, SqlHelper.SQLConsumer)
+     */
+    public void runQuery(String query, @NotNull SqlHelper.SQLConsumer action) throws SQLException {
+        SqlHelper.runQuery(pool, query, con, ps -> {
+            action.apply(ps);
+            return null;
+        });
+    }
+
+    /**
+     * @see SqlHelper#runInsertQuery(String, SqlHelper.SQLFunction)
+     */
+    public <T> T runInsertQuery(String query, @NotNull SqlHelper.SQLFunction<T> action) throws SQLException {
+        writtenStatements.add(query);
+        return SqlHelper.runInsertQuery(pool, query, con, action);
+    }
+
+    /**
+     * @see SqlHelper#runStatement(String, SqlHelper.SQLConsumer)
+     */
+    public void runStatement(String sql, @NotNull SqlHelper.SQLConsumer action) throws SQLException {
+        writtenStatements.add(sql);
+        SqlHelper.runStatement(pool, sql, con, action);
+    }
+
+    /**
+     * @see SqlHelper#runBatch(String, Iterable, SqlHelper.SQLBinder, int)
+     */
+    public <T> int @NotNull [] runBatch(String sql, @NotNull Iterable<T> items, @NotNull SqlHelper.SQLBinder<T> binder, int batchSize) throws SQLException {
+        writtenStatements.add(sql);
+        return SqlHelper.runBatch(pool, sql, con, items, binder, batchSize);
+    }
+
+    /**
+     * @see SqlHelper#runBatchInsertQuery(String, Iterable, SqlHelper.SQLBinder, int)
+     */
+    public <T> @NotNull List<Long> runBatchInsertQuery(String sql, @NotNull Iterable<T> items, @NotNull SqlHelper.SQLBinder<T> binder, int batchSize) throws SQLException {
+        writtenStatements.add(sql);
+        return SqlHelper.runBatchInsertQuery(pool, sql, con, items, binder, batchSize);
+    }
+
+    /**
+     * Streams the rows of a query. No other statement may be executed in this transaction until the stream is closed.
+     *
+     * @see SqlHelper#stream(String, SqlHelper.SQLConsumer, SqlHelper.SQLRowMapper)
+     */
+    public <T> @NotNull Stream<T> stream(String sql, @NotNull SqlHelper.SQLConsumer binder, @NotNull SqlHelper.SQLRowMapper<T> mapper) throws SQLException {
+        return SqlHelper.stream(pool, sql, con, false, binder, mapper, pool.getStreamFetchSize());
+    }
+
+    /**
+     * Runs the given work inside a savepoint of this transaction.
+     * If the work fails, only its changes are rolled back and the exception is rethrown,
+     * so the caller can decide whether to continue the outer transaction.
+     * Savepoints can be nested.
+     *
+     * @param body The work to run inside the savepoint
+     * @param <T>  The type of result to return
+     * @return The result returned by the {@code body}
+     */
+    public <T> T savepoint(@NotNull SqlHelper.SQLTransactionFunction<T> body) throws SQLException {
+        Savepoint savepoint = con.setSavepoint();
+        T result;
+        try {
+            result = body.apply(this);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                con.rollback(savepoint);
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        }
+        con.releaseSavepoint(savepoint);
+        return result;
+    }
+
+    /**
+     * Runs the given work without a result inside a savepoint of this transaction.
+     *
+     * @param body The work to run inside the savepoint
+     * @see #savepoint(SqlHelper.SQLTransactionFunction)
+     */
+    public void runInSavepoint(@NotNull SqlHelper.SQLTransactionConsumer body) throws SQLException {
+        savepoint(tx -> {
+            body.apply(tx);
+            return null;
+        });
+    }
+
+    /**
+     * Checks whether the given exception was caused by a deadlock or lock wait timeout,
+     * i.e. whether retrying the whole transaction can succeed.
+     *
+     * @param e The exception to check
+     * @return {@code true} if the transaction can be retried
+     */
+    static boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && (sql.getErrorCode() == ER_LOCK_DEADLOCK || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                    || SQL_STATE_SERIALIZATION_FAILURE.equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
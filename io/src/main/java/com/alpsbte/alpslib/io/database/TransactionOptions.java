@@ -0,0 +1,26 @@
+package com.alpsbte.alpslib.io.database;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options of a transaction started by {@link SqlHelper#inTransaction(TransactionOptions, SqlHelper.SQLTransactionFunction)}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TransactionOptions {
+    /** The options used if none are given. */
+    public static final TransactionOptions DEFAULT = TransactionOptions.builder().build();
+
+    /**
+     * The isolation level of the transaction, one of the {@code TRANSACTION_*} constants of {@link java.sql.Connection},
+     * or {@code null} to use the default of the connection.
+     */
+    Integer isolationLevel;
+    /** How often the transaction is retried after a deadlock or lock wait timeout. */
+    @Builder.Default
+    int maxRetries = 3;
+    /** Delay before the first retry, doubled for every further retry (milliseconds). */
+    @Builder.Default
+    long retryBackoff = 50L;
+}
@@ -0,0 +1,20 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a {@link SQLException} thrown where checked exceptions cannot be propagated,
+ * e.g. while a lazily fetched {@link java.util.stream.Stream} is consumed.
+ */
+public class UncheckedSQLException extends RuntimeException {
+    public UncheckedSQLException(@NotNull SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
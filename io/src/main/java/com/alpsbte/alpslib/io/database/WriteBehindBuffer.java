@@ -0,0 +1,252 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Buffers high-frequency row updates in memory and writes them behind as batched upserts.
+ * <p>
+ * Updates are keyed by table and primary key. Repeated updates of the same row are merged,
+ * so only the latest value (or the summed delta for counters) is written. Pending updates are
+ * flushed periodically, once the number of pending rows reaches a threshold and synchronously
+ * when its pool is shut down by {@link DatabaseConnection#shutdown()}.
+ * </p>
+ * <p>
+ * Each flush writes every pending row with {@code INSERT ... ON DUPLICATE KEY UPDATE}, so the key
+ * column must be the primary key or a unique key of the table. Rows that fail to flush are kept
+ * and retried with the next flush.
+ * </p>
+ */
+public final class WriteBehindBuffer implements AutoCloseable {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private volatile DatabasePool pool;
+    private final int maxPendingRows;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private Map<RowKey, PendingRow> pending = new LinkedHashMap<>();
+
+    /**
+     * Creates a buffer writing to the default pool and registers it to be flushed when the pool shuts down.
+     *
+     * @param flushIntervalMillis Interval in which pending updates are flushed (milliseconds)
+     * @param maxPendingRows      Number of pending rows which triggers an early flush
+     */
+    public WriteBehindBuffer(long flushIntervalMillis, int maxPendingRows) {
+        this(DatabaseConnection.DEFAULT_POOL, flushIntervalMillis, maxPendingRows);
+    }
+
+    /**
+     * Creates a buffer writing to the named pool and registers it to be flushed when the pool shuts down.
+     *
+     * @param poolName            The name of the pool, see {@link DatabaseConnection#register}
+     * @param flushIntervalMillis Interval in which pending updates are flushed (milliseconds)
+     * @param maxPendingRows      Number of pending rows which triggers an early flush
+     * @throws IllegalStateException If no pool is registered with this name
+     */
+    public WriteBehindBuffer(@NotNull String poolName, long flushIntervalMillis, int maxPendingRows) {
+        this.pool = DatabaseConnection.getPool(poolName);
+        if (pool == null) throw new IllegalStateException("Database pool '" + poolName + "' is not registered.");
+        if (flushIntervalMillis <= 0) throw new IllegalArgumentException("Flush interval must be positive.");
+        if (maxPendingRows < 1) throw new IllegalArgumentException("Max pending rows must be at least 1.");
+
+        this.maxPendingRows = maxPendingRows;
+        this.batchSize = Math.min(maxPendingRows, 1000);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("alpslib-write-behind").daemon().factory());
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        pool.registerWriteBehindBuffer(this);
+    }
+
+    /**
+     * Sets a column of a row. A later update of the same column replaces this value.
+     *
+     * @param table     The table of the row
+     * @param keyColumn The primary key column of the table
+     * @param key       The primary key of the row
+     * @param column    The column to set
+     * @param value     The new value
+     */
+    public void set(@NotNull String table, @NotNull String keyColumn, @NotNull Object key, @NotNull String column, Object value) {
+        update(table, keyColumn, key, column, new ColumnUpdate(value, false));
+    }
+
+    /**
+     * Adds a delta to a numeric column of a row. Deltas of the same column are summed until the next flush.
+     * If the row does not exist yet, it is inserted with the delta as value.
+     *
+     * @param table     The table of the row
+     * @param keyColumn The primary key column of the table
+     * @param key       The primary key of the row
+     * @param column    The column to increment
+     * @param delta     The value to add
+     */
+    public void add(@NotNull String table, @NotNull String keyColumn, @NotNull Object key, @NotNull String column, long delta) {
+        update(table, keyColumn, key, column, new ColumnUpdate(delta, true));
+    }
+
+    private void update(String table, String keyColumn, Object key, String column, ColumnUpdate update) {
+        checkIdentifier(table);
+        checkIdentifier(keyColumn);
+        checkIdentifier(column);
+
+        int size;
+        synchronized (this) {
+            pending.computeIfAbsent(new RowKey(table, keyColumn, key), k -> new PendingRow()).merge(column, update);
+            size = pending.size();
+        }
+        // At most one early flush is queued, no matter how many updates arrive while the buffer is full
+        if (size >= maxPendingRows && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException ignored) {
+                // Buffer is closing, the final flush picks up this update
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * @return The number of rows with pending updates
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes all pending updates to the database on the calling thread.
+     * Rows that fail to be written are kept for the next flush.
+     */
+    public void flush() throws SQLException {
+        flushLock.lock();
+        try {
+            Map<RowKey, PendingRow> rows;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                rows = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            // Group rows writing the same columns, so each group can be sent as one batch
+            Map<String, List<Map.Entry<RowKey, PendingRow>>> groups = new LinkedHashMap<>();
+            for (Map.Entry<RowKey, PendingRow> row : rows.entrySet()) {
+                groups.computeIfAbsent(upsertSql(row.getKey(), row.getValue()), sql -> new ArrayList<>()).add(row);
+            }
+
+            SQLException failure = null;
+            for (Map.Entry<String, List<Map.Entry<RowKey, PendingRow>>> group : groups.entrySet()) {
+                try {
+                    SqlHelper.runBatch(pool, group.getKey(), group.getValue(), (ps, row) -> {
+                        int index = 1;
+                        ps.setObject(index++, row.getKey().key());
+                        for (ColumnUpdate update : row.getValue().columns.values()) ps.setObject(index++, update.value());
+                    }, batchSize);
+                } catch (SQLException e) {
+                    restore(group.getValue());
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) throw failure;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all further flushes to the given pool, which replaced the pool of this buffer.
+     */
+    void rebind(@NotNull DatabasePool next) {
+        pool = next;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.error("Could not flush write-behind buffer, {} rows are kept for the next attempt.", getPendingCount(), e);
+        }
+    }
+
+    /**
+     * Puts rows which failed to flush back into the buffer, below any update made in the meantime.
+     */
+    private synchronized void restore(@NotNull List<Map.Entry<RowKey, PendingRow>> rows) {
+        Map<RowKey, PendingRow> newer = pending;
+        pending = new LinkedHashMap<>();
+        for (Map.Entry<RowKey, PendingRow> row : rows) pending.put(row.getKey(), row.getValue());
+        newer.forEach((key, row) -> {
+            PendingRow older = pending.get(key);
+            if (older == null) pending.put(key, row);
+            else row.columns.forEach(older::merge);
+        });
+    }
+
+    /**
+     * Stops the flush timer, writes all pending updates and unregisters this buffer.
+     */
+    @Override
+    public void close() throws SQLException {
+        scheduler.shutdown();
+        pool.unregisterWriteBehindBuffer(this);
+        flush();
+    }
+
+    private static @NotNull String upsertSql(@NotNull RowKey key, @NotNull PendingRow row) {
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        StringJoiner updates = new StringJoiner(", ");
+        columns.add("`" + key.keyColumn() + "`");
+        values.add("?");
+        row.columns.forEach((column, update) -> {
+            columns.add("`" + column + "`");
+            values.add("?");
+            updates.add(update.additive()
+                    ? "`" + column + "` = `" + column + "` + VALUES(`" + column + "`)"
+                    : "`" + column + "` = VALUES(`" + column + "`)");
+        });
+        return "INSERT INTO `" + key.table() + "` (" + columns + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    private static void checkIdentifier(String identifier) {
+        if (!IDENTIFIER.matcher(identifier).matches()) throw new IllegalArgumentException("Invalid SQL identifier: " + identifier);
+    }
+
+    private record RowKey(String table, String keyColumn, Object key) {}
+
+    private record ColumnUpdate(Object value, boolean additive) {}
+
+    private static final class PendingRow {
+        private final Map<String, ColumnUpdate> columns = new TreeMap<>();
+
+        void merge(String column, ColumnUpdate update) {
+            columns.merge(column, update, (older, newer) -> {
+                if (!newer.additive()) return newer;
+                long delta = ((Number) newer.value()).longValue();
+                if (older.value() instanceof Number number) return new ColumnUpdate(number.longValue() + delta, older.additive());
+                return older.value() == null ? new ColumnUpdate(delta, false) : newer;
+            });
+        }
+    }
+}
@@ -24,14 +24,15 @@ public class LanguageUtil extends YamlFileFactory {
         super(langFiles);
         languageFiles = langFiles;
 
-        Arrays.stream(langFiles).forEach(lang -> {
-            if (!lang.getFile().exists()) {
-                createFile(lang);
-            } else if (reloadFile(lang) && lang.getDouble(CONFIG_VERSION_PATH) != lang.getVersion()) {
-                updateFile(lang);
-            }
+        for (LanguageFile lang : langFiles) {
+            if (!lang.getFile().exists()) createFile(lang);
+        }
+
+        for (LanguageFile lang : loadFiles(langFiles, this::loadFile)) {
+            if (lang.getDouble(CONFIG_VERSION_PATH) == lang.getVersion()) continue;
+            updateFile(lang);
             reloadFile(lang);
-        });
+        }
     }
 
     public String get(CommandSender sender, String key) {
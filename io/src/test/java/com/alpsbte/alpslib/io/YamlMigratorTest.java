@@ -0,0 +1,187 @@
+package com.alpsbte.alpslib.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class YamlMigratorTest {
+    @Test
+    void keepsNestedKeysWithTheSameName() {
+        List<String> current = List.of(
+                "database:",
+                "  name: plotsystem",
+                "  port: 3306",
+                "server:",
+                "  name: lobby",
+                "config-version: 1.0");
+        List<String> defaults = List.of(
+                "# Database settings",
+                "database:",
+                "  name: ''",
+                "  port: 3306",
+                "  pool-size: 10",
+                "server:",
+                "  # Name of this server",
+                "  name: ''",
+                "config-version: 1.1");
+
+        assertEquals(List.of(
+                "# Database settings",
+                "database:",
+                "  name: plotsystem",
+                "  port: 3306",
+                "  pool-size: 10",
+                "server:",
+                "  # Name of this server",
+                "  name: lobby",
+                "config-version: 1.1"), new YamlMigrator().migrate(current, defaults, 1.1));
+    }
+
+    @Test
+    void replacesListsAndListsOfMaps() {
+        List<String> current = List.of(
+                "worlds:",
+                "  - world",
+                "  - world_nether",
+                "rewards:",
+                "- item: diamond",
+                "  amount: 2",
+                "- item: emerald",
+                "  amount: 1",
+                "config-version: 1.0");
+        List<String> defaults = List.of(
+                "worlds: []",
+                "rewards:",
+                "  - item: stone",
+                "    amount: 64",
+                "# Trailing comment",
+                "config-version: 1.1");
+
+        assertEquals(List.of(
+                "worlds:",
+                "  - world",
+                "  - world_nether",
+                "rewards:",
+                "- item: diamond",
+                "  amount: 2",
+                "- item: emerald",
+                "  amount: 1",
+                "# Trailing comment",
+                "config-version: 1.1"), new YamlMigrator().migrate(current, defaults, 1.1));
+    }
+
+    @Test
+    void replacesBlockScalars() {
+        List<String> current = List.of(
+                "messages:",
+                "  motd: |",
+                "    Welcome!",
+                "",
+                "    key: not a key",
+                "  footer: bye",
+                "config-version: 1.0");
+        List<String> defaults = List.of(
+                "messages:",
+                "    motd: >",
+                "        Hello",
+                "    footer: see you",
+                "config-version: 1.1");
+
+        assertEquals(List.of(
+                "messages:",
+                "    motd: |",
+                "      Welcome!",
+                "",
+                "      key: not a key",
+                "    footer: bye",
+                "config-version: 1.1"), new YamlMigrator().migrate(current, defaults, 1.1));
+    }
+
+    @Test
+    void matchesQuotedKeys() {
+        List<String> current = List.of(
+                "'spawn:point': 10",
+                "\"display name\": Alps",
+                "config-version: 1.0");
+        List<String> defaults = List.of(
+                "\"spawn:point\": 0",
+                "'display name': ''",
+                "config-version: 1.1");
+
+        assertEquals(List.of(
+                "\"spawn:point\": 10",
+                "'display name': Alps",
+                "config-version: 1.1"), new YamlMigrator().migrate(current, defaults, 1.1));
+    }
+
+    @Test
+    void treatsCommentOnlyValuesAsSectionsOrEmptyValues() {
+        List<String> current = List.of(
+                "database: # connection",
+                "  url: jdbc:mariadb://localhost",
+                "password: # not set",
+                "config-version: 1.0");
+        List<String> defaults = List.of(
+                "database:",
+                "  url: ''",
+                "password: secret",
+                "config-version: 1.1");
+
+        assertEquals(List.of(
+                "database:",
+                "  url: jdbc:mariadb://localhost",
+                "password: # not set",
+                "config-version: 1.1"), new YamlMigrator().migrate(current, defaults, 1.1));
+    }
+
+    @Test
+    void runsStepsOfNewerVersionsInOrder() {
+        List<String> current = List.of(
+                "database:",
+                "  name: plotsystem",
+                "legacy-mode: true",
+                "config-version: 1.1");
+        List<String> defaults = List.of(
+                "storage:",
+                "  schema: ''",
+                "legacy-mode: false",
+                "config-version: 1.3");
+        YamlMigrator migrator = new YamlMigrator()
+                .addStep(1.1, values -> values.remove("database"))
+                .addStep(1.2, values -> values.rename("database", "storage"))
+                .addStep(1.3, values -> {
+                    values.rename("storage.name", "storage.schema");
+                    values.remove("legacy-mode");
+                });
+
+        assertEquals(List.of(
+                "storage:",
+                "  schema: plotsystem",
+                "legacy-mode: false",
+                "config-version: 1.3"), migrator.migrate(current, defaults, 1.3));
+    }
+
+    @Test
+    void skipsStepsOfTheCurrentVersion() {
+        List<String> current = List.of(
+                "name: alps",
+                "config-version: 1.2");
+        List<String> defaults = List.of(
+                "name: ''",
+                "config-version: 1.2");
+        YamlMigrator migrator = new YamlMigrator().addStep(1.2, values -> values.set("name", "changed"));
+
+        assertEquals(List.of("name: alps", "config-version: 1.2"), migrator.migrate(current, defaults, 1.2));
+    }
+
+    @Test
+    void rejectsDefaultsWithoutVersion() {
+        List<String> current = List.of("name: alps", "config-version: 1.0");
+
+        assertThrows(IllegalArgumentException.class, () -> new YamlMigrator().migrate(current, List.of(), 1.1));
+        assertThrows(IllegalArgumentException.class, () -> new YamlMigrator().migrate(current, List.of("name: ''"), 1.1));
+    }
+}
@@ -0,0 +1,85 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Points the default pool of {@link DatabaseConnection} at an in-memory H2 database running in MariaDB mode,
+ * so {@link SqlHelper} can be tested and benchmarked without a database server.
+ * <p>
+ * Every call to {@link #start(int)} creates a fresh database with the {@link #PLOTS} table.
+ * Register it on a test class with {@code @ExtendWith(EmbeddedDatabase.class)}, or call
+ * {@link #start(int)} and {@link #stop()} directly, e.g. from a benchmark.
+ * </p>
+ */
+public final class EmbeddedDatabase implements BeforeAllCallback, AfterAllCallback {
+    public static final String PLOTS = "plots";
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        start(DEFAULT_POOL_SIZE);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        stop();
+    }
+
+    /**
+     * Creates a new in-memory database and registers it as the default pool.
+     *
+     * @param poolSize The maximum number of connections in the pool
+     * @return The registered pool
+     */
+    public static @NotNull DatabasePool start(int poolSize) throws ClassNotFoundException, SQLException {
+        DatabasePool pool = DatabaseConnection.register(DatabaseConnection.DEFAULT_POOL, config(poolSize));
+        SqlHelper.runStatement("CREATE TABLE " + PLOTS + " (id INT AUTO_INCREMENT PRIMARY KEY, owner_uuid VARCHAR(36) NOT NULL, "
+                + "status VARCHAR(16) NOT NULL, score INT NOT NULL)", ps -> {});
+        return pool;
+    }
+
+    /**
+     * Shuts down the default pool. The in-memory database is dropped with its last connection.
+     */
+    public static void stop() {
+        DatabaseConnection.shutdown();
+    }
+
+    /**
+     * Inserts the given number of plots with random owners.
+     *
+     * @param rows The number of plots to insert
+     */
+    public static void seed(int rows) throws SQLException {
+        SqlHelper.runBatch("INSERT INTO " + PLOTS + " (owner_uuid, status, score) VALUES (?, ?, ?)", IntStream.range(0, rows).boxed().toList(),
+                (ps, i) -> {
+                    ps.setString(1, UUID.randomUUID().toString());
+                    ps.setString(2, i % 2 == 0 ? "unclaimed" : "completed");
+                    ps.setInt(3, i % 100);
+                }, 1000);
+    }
+
+    private static @NotNull DatabaseSection config(int poolSize) {
+        return DatabaseSection.builder()
+                .url("jdbc:h2:mem:")
+                .dbName("alpslib-" + UUID.randomUUID())
+                .username("sa")
+                .password("")
+                .maxLifetime(1800000L)
+                .connectionTimeout(30000L)
+                .keepaliveTime(0L)
+                .maximumPoolSize(poolSize)
+                .leakDetectionThreshold(0L)
+                .poolName("alpslib-test")
+                .driverClassName("org.h2.Driver")
+                .urlParameters(";MODE=MariaDB;DATABASE_TO_LOWER=TRUE")
+                .build();
+    }
+}
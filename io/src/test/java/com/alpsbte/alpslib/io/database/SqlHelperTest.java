@@ -0,0 +1,73 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(EmbeddedDatabase.class)
+public class SqlHelperTest {
+    private static final String COUNT = "SELECT COUNT(*) AS total FROM " + EmbeddedDatabase.PLOTS;
+
+    @BeforeEach
+    void clear() throws SQLException {
+        SqlHelper.runStatement("DELETE FROM " + EmbeddedDatabase.PLOTS, ps -> {});
+    }
+
+    @Test
+    void runQueryReturnsRows() throws SQLException {
+        EmbeddedDatabase.seed(10);
+        int completed = SqlHelper.runQuery("SELECT COUNT(*) FROM " + EmbeddedDatabase.PLOTS + " WHERE status = ?", ps -> {
+            ps.setString(1, "completed");
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        });
+        assertEquals(5, completed);
+    }
+
+    @Test
+    void runBatchInsertQueryReturnsGeneratedKeys() throws SQLException {
+        List<Long> ids = SqlHelper.runBatchInsertQuery("INSERT INTO " + EmbeddedDatabase.PLOTS + " (owner_uuid, status, score) VALUES (?, ?, ?)",
+                List.of(1, 2, 3), (ps, score) -> {
+                    ps.setString(1, UUID.randomUUID().toString());
+                    ps.setString(2, "unclaimed");
+                    ps.setInt(3, score);
+                }, 2);
+        assertEquals(3, ids.size());
+        assertEquals(3, ids.stream().distinct().count());
+    }
+
+    @Test
+    void streamReadsAllRows() throws SQLException {
+        EmbeddedDatabase.seed(2500);
+        try (Stream<Integer> scores = SqlHelper.stream("SELECT score FROM " + EmbeddedDatabase.PLOTS, ps -> {}, rs -> rs.getInt(1), 100)) {
+            assertEquals(2500, scores.count());
+        }
+    }
+
+    @Test
+    void inTransactionRollsBackOnError() throws SQLException {
+        EmbeddedDatabase.seed(1);
+        assertThrows(SQLException.class, () -> SqlHelper.runInTransaction(tx -> {
+            tx.runStatement("DELETE FROM " + EmbeddedDatabase.PLOTS, ps -> {});
+            throw new SQLException("Abort");
+        }));
+        assertEquals(1, SqlHelper.runQuery(COUNT, RowMapper.of(Count.class).first(ps -> {})).total());
+    }
+
+    @Test
+    void rowMapperRejectsNullPrimitives() {
+        assertThrows(SQLException.class, () -> SqlHelper.runQuery("SELECT CAST(NULL AS BIGINT) AS total", RowMapper.of(Count.class).first(ps -> {})));
+    }
+
+    record Count(long total) {}
+}
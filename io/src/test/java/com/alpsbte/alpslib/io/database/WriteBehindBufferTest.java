@@ -0,0 +1,114 @@
+package com.alpsbte.alpslib.io.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(EmbeddedDatabase.class)
+public class WriteBehindBufferTest {
+    private static final String COUNTERS = "counters";
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        SqlHelper.runStatement("DROP TABLE IF EXISTS " + COUNTERS, ps -> {});
+        SqlHelper.runStatement("CREATE TABLE " + COUNTERS + " (id INT PRIMARY KEY, total BIGINT)", ps -> {});
+    }
+
+    @Test
+    void addsAreSummedIntoTheStoredValue() throws SQLException {
+        insert(1, 100);
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(60000L, 1000)) {
+            buffer.add(COUNTERS, "id", 1, "total", 5);
+            buffer.add(COUNTERS, "id", 1, "total", 3);
+            buffer.add(COUNTERS, "id", 2, "total", 4);
+            assertEquals(2, buffer.getPendingCount());
+            buffer.flush();
+        }
+        assertEquals(108L, total(1));
+        assertEquals(4L, total(2));
+    }
+
+    @Test
+    void addAfterSetIsAppliedToTheNewValue() throws SQLException {
+        insert(1, 100);
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(60000L, 1000)) {
+            buffer.set(COUNTERS, "id", 1, "total", 10);
+            buffer.add(COUNTERS, "id", 1, "total", 5);
+            buffer.flush();
+        }
+        assertEquals(15L, total(1));
+    }
+
+    @Test
+    void setAfterAddReplacesTheDelta() throws SQLException {
+        insert(1, 100);
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(60000L, 1000)) {
+            buffer.add(COUNTERS, "id", 1, "total", 5);
+            buffer.set(COUNTERS, "id", 1, "total", 7);
+            buffer.flush();
+        }
+        assertEquals(7L, total(1));
+    }
+
+    @Test
+    void failedRowsAreRestoredBelowNewerUpdates() throws SQLException {
+        insert(1, 100);
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(60000L, 1000)) {
+            SqlHelper.runStatement("ALTER TABLE " + COUNTERS + " RENAME TO counters_offline", ps -> {});
+            buffer.add(COUNTERS, "id", 1, "total", 5);
+            assertThrows(SQLException.class, buffer::flush);
+            assertEquals(1, buffer.getPendingCount());
+
+            buffer.add(COUNTERS, "id", 1, "total", 2);
+            SqlHelper.runStatement("ALTER TABLE counters_offline RENAME TO " + COUNTERS, ps -> {});
+            buffer.flush();
+            assertEquals(0, buffer.getPendingCount());
+        }
+        assertEquals(107L, total(1));
+    }
+
+    @Test
+    void shutdownFlushesOnTheMainThreadOfAStrictPool() throws Exception {
+        DatabaseSection section = DatabaseConnection.requirePool(DatabaseConnection.DEFAULT_POOL).getSection().toBuilder()
+                .poolName("alpslib-test-strict")
+                .mainThreadPolicy(MainThreadPolicy.STRICT)
+                .build();
+        DatabaseConnection.register("strict", section); // Same in-memory database as the default pool
+        WriteBehindBuffer buffer = new WriteBehindBuffer("strict", 60000L, 1000);
+        buffer.add(COUNTERS, "id", 1, "total", 5);
+
+        BooleanSupplier previous = MainThreadGuard.mainThread;
+        MainThreadGuard.mainThread = () -> true;
+        try {
+            DatabaseConnection.shutdown("strict");
+        } finally {
+            MainThreadGuard.mainThread = previous;
+        }
+
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(5L, total(1));
+    }
+
+    private static void insert(int id, long total) throws SQLException {
+        SqlHelper.runStatement("INSERT INTO " + COUNTERS + " (id, total) VALUES (?, ?)", ps -> {
+            ps.setInt(1, id);
+            ps.setLong(2, total);
+        });
+    }
+
+    private static long total(int id) throws SQLException {
+        return SqlHelper.runQuery("SELECT total FROM " + COUNTERS + " WHERE id = ?", ps -> {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1L;
+            }
+        });
+    }
+}
@@ -9,13 +9,13 @@ import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
+import com.alpsbte.alpslib.io.YamlMigrator;
 import com.alpsbte.alpslib.io.config.ConfigNotImplementedException;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
@@ -182,22 +182,11 @@ public class ConfigManager {
         // Update config
         try {
             List<String> currentFileLines = FileUtils.readLines(config.getFile(), StandardCharsets.UTF_8);
-            List<String> defaultFileLines = config.readDefaultConfig();
-
-            currentFileLines.removeIf(s -> s.trim().isEmpty() || s.trim().startsWith("#") || s.split(":").length == 1);
-            currentFileLines.forEach(s -> {
-                String[] a = s.split(":");
-                String newS = String.join(":", Arrays.copyOfRange(a, 1, a.length));
-                int index = getIndex(a[0], defaultFileLines);
-                if (index > -1)
-                    defaultFileLines.set(index, defaultFileLines.get(index).split(":")[0] + ":" + newS);
-            });
-
-            defaultFileLines.set(getIndex("config-version", defaultFileLines), "config-version: " + Config.VERSION);
-            Files.write(config.getFile().toPath(), defaultFileLines);
+            List<String> updatedFileLines = new YamlMigrator().migrate(currentFileLines, config.readDefaultConfig(), Config.VERSION);
+            Files.write(config.getFile().toPath(), updatedFileLines);
             Utils.sendConsoleMessage(ChatColor.YELLOW + "Updated " + config.getFileName() + " to version " + Config.VERSION + ".", consoleOutput);
             return true;
-        } catch (IOException ex) {
+        } catch (IOException | IllegalArgumentException ex) {
             Utils.sendConsoleError("An error occurred while updating config file!", ex, consoleOutput);
         }
         return false;
@@ -277,7 +266,9 @@ public class ConfigManager {
 
     /**
      * @return Line index in list
+     * @deprecated Searches the whole list for every line and does not tell nested keys apart, use {@link YamlMigrator} instead
      */
+    @Deprecated
     public int getIndex(String line, List<String> list) {
         for (String s : list)
             if (s.startsWith(line) || s.equalsIgnoreCase(line))